@@ -0,0 +1,57 @@
+package com.wt.labrador.benchmark;
+
+import com.wt.labrador.util.BatchResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.wt.labrador.benchmark.HBaseClusterState.*;
+
+/**
+ * 批量读写,每次操作batchSize行
+ *
+ * @author 一贫
+ * @date 2021/10/29
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int batchSize;
+
+    @Benchmark
+    public Map<String, BatchResult<Void>> putRows(HBaseClusterState state) {
+        Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
+        for (int i = 0; i < batchSize; i++) {
+            rows.put(randomRowKey(), row(1));
+        }
+        return state.hBaseUtil.putRows(TABLE, rows, NAMESPACE);
+    }
+
+    @Benchmark
+    public Map<String, BatchResult<Map<String, Map<String, String>>>> getRows(HBaseClusterState state) {
+        List<String> rowKeys = new ArrayList<>(batchSize);
+        for (int i = 0; i < batchSize; i++) {
+            rowKeys.add(randomRowKey());
+        }
+        return state.hBaseUtil.getRows(TABLE, rowKeys, null, NAMESPACE);
+    }
+}
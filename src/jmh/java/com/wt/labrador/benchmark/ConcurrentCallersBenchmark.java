@@ -0,0 +1,97 @@
+package com.wt.labrador.benchmark;
+
+import com.wt.labrador.exception.LabradorException;
+import com.wt.labrador.util.HBaseExecutors;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.wt.labrador.benchmark.HBaseClusterState.*;
+
+/**
+ * 大量并发阻塞调用方,对比平台线程池(Tomcat默认最大200线程)与每个调用一个虚拟线程
+ * 每次调用CALLERS个调用方同时执行getRow,全部返回后结束;virtual需要在JDK21及以上运行
+ * 超过client.per-server-max-concurrent等原因失败的调用计入failed,对比时应同时看succeeded
+ * 运行: mvn -P benchmark test-compile exec:exec -Djmh.args="ConcurrentCallersBenchmark"
+ *
+ * @author 一贫
+ * @date 2021/11/10
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentCallersBenchmark {
+
+    private static final int CALLERS = 10000;
+
+    @Param({"platform", "virtual"})
+    private String mode;
+
+    @Param({"200"})
+    private int platformThreads;
+
+    private ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        executor = "virtual".equals(mode)
+                ? HBaseExecutors.newVirtualThreadPerTaskExecutor("bench-caller-")
+                : HBaseExecutors.newFixedThreadPool("bench-caller-", platformThreads);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (executor != null)
+            executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLERS)
+    public void getRow(HBaseClusterState state, Outcome outcome) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(CALLERS);
+        LongAdder failed = new LongAdder();
+        for (int i = 0; i < CALLERS; i++) {
+            executor.execute(() -> {
+                try {
+                    state.hBaseUtil.getRow(TABLE, randomRowKey(), NAMESPACE);
+                } catch (LabradorException e) {
+                    failed.increment();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        outcome.failed += failed.sum();
+        outcome.succeeded += CALLERS - failed.sum();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Outcome {
+
+        public long succeeded;
+
+        public long failed;
+    }
+}
@@ -0,0 +1,108 @@
+package com.wt.labrador.benchmark;
+
+import com.wt.labrador.LabradorApplication;
+import com.wt.labrador.util.HBaseUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 基准测试共享的进程内HBase,每个fork启动一次mini cluster并预先写入ROWS行数据
+ * HBaseUtil通过Spring容器创建,与应用中的配置方式一致,只替换ZooKeeper地址
+ *
+ * @author 一贫
+ * @date 2021/10/29
+ */
+@State(Scope.Benchmark)
+public class HBaseClusterState {
+
+    public static final String NAMESPACE = "bench";
+
+    public static final String TABLE = "users";
+
+    public static final String FAMILY = "info";
+
+    public static final int ROWS = 10000;
+
+    public static final int COLUMNS = 10;
+
+    public static final int VALUE_SIZE = 32;
+
+    private HBaseTestingUtility utility;
+
+    private ConfigurableApplicationContext context;
+
+    HBaseUtil hBaseUtil;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        utility = new HBaseTestingUtility();
+        utility.startMiniCluster();
+        int zkPort = utility.getZkCluster().getClientPort();
+        context = new SpringApplicationBuilder(LabradorApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("hbase.zookeeper.quorum=127.0.0.1:" + zkPort,
+                        "hbase.metrics.slow-threshold=0",
+                        "debug=false")
+                .run();
+        hBaseUtil = context.getBean(HBaseUtil.class);
+        hBaseUtil.createNamespace(NAMESPACE);
+        hBaseUtil.createTable(TABLE, new String[]{FAMILY}, NAMESPACE);
+        Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
+        for (int i = 0; i < ROWS; i++) {
+            rows.put(rowKey(i), row(COLUMNS));
+            if (rows.size() == 1000) {
+                hBaseUtil.putRows(TABLE, rows, NAMESPACE);
+                rows.clear();
+            }
+        }
+        if (!rows.isEmpty())
+            hBaseUtil.putRows(TABLE, rows, NAMESPACE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (context != null)
+            context.close();
+        if (utility != null)
+            utility.shutdownMiniCluster();
+    }
+
+    static String rowKey(int index) {
+        return String.format("row_%06d", index);
+    }
+
+    static String randomRowKey() {
+        return rowKey(ThreadLocalRandom.current().nextInt(ROWS));
+    }
+
+    static Map<String, Map<String, String>> row(int columns) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < columns; i++) {
+            values.put("c" + i, value());
+        }
+        Map<String, Map<String, String>> families = new HashMap<>();
+        families.put(FAMILY, values);
+        return families;
+    }
+
+    static String value() {
+        char[] chars = new char[VALUE_SIZE];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
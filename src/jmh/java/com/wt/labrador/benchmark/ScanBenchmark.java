@@ -0,0 +1,65 @@
+package com.wt.labrador.benchmark;
+
+import com.wt.labrador.util.ScanOptions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static com.wt.labrador.benchmark.HBaseClusterState.*;
+
+/**
+ * 扫描,每次从随机位置开始扫描rows行
+ *
+ * @author 一贫
+ * @date 2021/10/29
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Thread)
+public class ScanBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int rows;
+
+    private String startRow() {
+        return rowKey(ThreadLocalRandom.current().nextInt(ROWS - rows));
+    }
+
+    private String stopRow(String startRow) {
+        return rowKey(Integer.parseInt(startRow.substring(4)) + rows);
+    }
+
+    /**
+     * 一次性返回Map
+     */
+    @Benchmark
+    public Map<String, Map<String, Map<String, String>>> scanToMap(HBaseClusterState state) {
+        String startRow = startRow();
+        return state.hBaseUtil.scan(TABLE, startRow, stopRow(startRow), null, NAMESPACE);
+    }
+
+    /**
+     * 逐行回调
+     */
+    @Benchmark
+    public void scanConsumer(HBaseClusterState state, Blackhole blackhole) {
+        String startRow = startRow();
+        ScanOptions options = ScanOptions.create().caching(Math.min(rows, 1000));
+        state.hBaseUtil.scan(TABLE, startRow, stopRow(startRow), null, options, blackhole::consume, NAMESPACE);
+    }
+}
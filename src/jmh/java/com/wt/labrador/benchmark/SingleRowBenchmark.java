@@ -0,0 +1,43 @@
+package com.wt.labrador.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.wt.labrador.benchmark.HBaseClusterState.*;
+
+/**
+ * 单行读写
+ *
+ * @author 一贫
+ * @date 2021/10/29
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SingleRowBenchmark {
+
+    @Benchmark
+    public void put(HBaseClusterState state) {
+        state.hBaseUtil.put(TABLE, randomRowKey(), FAMILY, "c0", value(), NAMESPACE);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, String>> getRow(HBaseClusterState state) {
+        return state.hBaseUtil.getRow(TABLE, randomRowKey(), NAMESPACE);
+    }
+
+    @Benchmark
+    public String getColumn(HBaseClusterState state) {
+        return state.hBaseUtil.getColumn(TABLE, randomRowKey(), FAMILY, "c0", NAMESPACE);
+    }
+}
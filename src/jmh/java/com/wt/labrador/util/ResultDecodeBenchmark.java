@@ -0,0 +1,76 @@
+package com.wt.labrador.util;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Result解码,不依赖mini cluster,用于衡量resultToMap,toRow的CPU及内存分配
+ * 与HBaseUtil放在同一个包下以访问包内方法
+ *
+ * @author 一贫
+ * @date 2021/10/29
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ResultDecodeBenchmark {
+
+    @Param({"1", "4"})
+    private int families;
+
+    @Param({"4", "32", "256"})
+    private int columns;
+
+    @Param({"32"})
+    private int valueSize;
+
+    private Result result;
+
+    @Setup
+    public void setUp() {
+        byte[] row = Bytes.toBytes("row_000001");
+        byte[] value = new byte[valueSize];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) ('a' + i % 26);
+        }
+        List<Cell> cells = new ArrayList<>(families * columns);
+        for (int f = 0; f < families; f++) {
+            byte[] family = Bytes.toBytes("cf" + f);
+            for (int c = 0; c < columns; c++) {
+                cells.add(new KeyValue(row, family, Bytes.toBytes(String.format("c%04d", c)), value));
+            }
+        }
+        result = Result.create(cells);
+    }
+
+    @Benchmark
+    public Map<String, Map<String, String>> resultToMap() {
+        return HBaseUtil.resultToMap(result);
+    }
+
+    @Benchmark
+    public HBaseRow toRow() {
+        return HBaseUtil.toRow(result);
+    }
+}
@@ -0,0 +1,27 @@
+package com.wt.labrador.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 实体类字段对应的列,支持String,long,int,double(及其包装类型)和byte[]
+ *
+ * @author 一贫
+ * @date 2021/10/22
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Column {
+
+    /**
+     * 列族
+     */
+    String family();
+
+    /**
+     * 列名,为空时使用字段名
+     */
+    String qualifier() default "";
+}
@@ -0,0 +1,27 @@
+package com.wt.labrador.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 实体类对应的HBase表
+ *
+ * @author 一贫
+ * @date 2021/10/22
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface HTable {
+
+    /**
+     * 表名
+     */
+    String name();
+
+    /**
+     * 命名空间,为空时默认使用default
+     */
+    String namespace() default "";
+}
@@ -0,0 +1,17 @@
+package com.wt.labrador.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 实体类中作为rowKey的字段,字段类型必须为String
+ *
+ * @author 一贫
+ * @date 2021/10/22
+ */
+@Target(ElementType.FIELD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RowKey {
+}
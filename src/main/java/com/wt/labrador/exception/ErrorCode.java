@@ -0,0 +1,96 @@
+package com.wt.labrador.exception;
+
+import org.apache.hadoop.hbase.CallQueueTooBigException;
+import org.apache.hadoop.hbase.DoNotRetryIOException;
+import org.apache.hadoop.hbase.NotServingRegionException;
+import org.apache.hadoop.hbase.RegionTooBusyException;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.RetriesExhaustedException;
+import org.apache.hadoop.hbase.exceptions.TimeoutIOException;
+import org.apache.hadoop.hbase.ipc.CallTimeoutException;
+import org.apache.hadoop.hbase.ipc.ServerTooBusyException;
+import org.apache.hadoop.hbase.quotas.RpcThrottlingException;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * LabradorException的错误码,调用方可按错误码决定是否重试或降级
+ *
+ * @author 一贫
+ * @date 2021/11/5
+ */
+public final class ErrorCode {
+
+    /**
+     * 表不存在
+     */
+    public static final String TABLE_NOT_FOUND = "TABLE_NOT_FOUND";
+
+    /**
+     * 超过rpc或operation超时时间
+     */
+    public static final String TIMEOUT = "TIMEOUT";
+
+    /**
+     * 重试次数用尽,通常是Region迁移或RegionServer宕机
+     */
+    public static final String RETRIES_EXHAUSTED = "RETRIES_EXHAUSTED";
+
+    /**
+     * RegionServer繁忙或限流,应降低请求速率后重试
+     */
+    public static final String SERVER_BUSY = "SERVER_BUSY";
+
+    /**
+     * 无法连接RegionServer或Region暂不可用
+     */
+    public static final String UNAVAILABLE = "UNAVAILABLE";
+
+    /**
+     * 请求本身有误,重试不会成功
+     */
+    public static final String BAD_REQUEST = "BAD_REQUEST";
+
+    /**
+     * 表已熔断,请求未发出
+     */
+    public static final String CIRCUIT_OPEN = "CIRCUIT_OPEN";
+
+    /**
+     * 表的并发调用数已达上限,请求未发出
+     */
+    public static final String BULKHEAD_FULL = "BULKHEAD_FULL";
+
+    public static final String UNKNOWN = "UNKNOWN";
+
+    private ErrorCode() {
+    }
+
+    /**
+     * 按异常链中最具体的HBase异常确定错误码
+     */
+    public static String of(Throwable e) {
+        String code = UNKNOWN;
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof LabradorException && ((LabradorException) t).getCode() != null)
+                return ((LabradorException) t).getCode();
+            if (t instanceof TableNotFoundException)
+                return TABLE_NOT_FOUND;
+            if (t instanceof CallTimeoutException || t instanceof TimeoutIOException
+                    || t instanceof SocketTimeoutException || t instanceof TimeoutException)
+                return TIMEOUT;
+            if (t instanceof RegionTooBusyException || t instanceof CallQueueTooBigException || t instanceof RpcThrottlingException
+                    || t instanceof ServerTooBusyException)
+                return SERVER_BUSY;
+            if (t instanceof NotServingRegionException || t instanceof ConnectException)
+                return UNAVAILABLE;
+            if (t instanceof DoNotRetryIOException)
+                code = BAD_REQUEST;
+            else if (t instanceof RetriesExhaustedException && UNKNOWN.equals(code))
+                code = RETRIES_EXHAUSTED;
+        }
+        return code;
+    }
+}
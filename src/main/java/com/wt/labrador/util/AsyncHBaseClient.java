@@ -0,0 +1,520 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.TableNotFoundException;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 基于AsyncConnection的非阻塞客户端,操作与HBaseUtil一致,返回CompletableFuture
+ * 失败时以LabradorException结束Future,回调在独立的线程池中执行,不占用HBase的RPC线程
+ *
+ * @author 一贫
+ * @date 2021/10/14
+ */
+@Component
+@Setter
+@ConfigurationProperties(prefix = "hbase.async")
+@Slf4j
+public class AsyncHBaseClient {
+
+    private final HBaseUtil hBaseUtil;
+
+    /**
+     * 默认超时时间,毫秒
+     */
+    private long operationTimeout = 5000;
+
+    /**
+     * 回调线程数
+     */
+    private int callbackThreads = Runtime.getRuntime().availableProcessors();
+
+    private AsyncConnection connection;
+
+    private ExecutorService callbackExecutor;
+
+    public AsyncHBaseClient(HBaseUtil hBaseUtil) {
+        this.hBaseUtil = hBaseUtil;
+    }
+
+    /**
+     * 保存数据
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param column
+     * @param data
+     * @param namespace
+     * @param timeout      为空时使用默认超时时间
+     * @return CompletableFuture<Void>
+     */
+    public CompletableFuture<Void> put(String tableName, String rowKey, String columnFamily, String column, String data, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        Put put = new Put(hBaseUtil.rowBytes(fullName, rowKey));
+        put.addColumn(Bytes.toBytes(columnFamily), Bytes.toBytes(column), Bytes.toBytes(data));
+        return mutate(fullName, rowKey, put, timeout,
+                () -> String.format("保存数据失败,table:%s,rowKey:%s,columnFamily:%s", fullName, rowKey, columnFamily));
+    }
+
+    public CompletableFuture<Void> put(String tableName, String rowKey, String columnFamily, String column, String data, String namespace) {
+        return put(tableName, rowKey, columnFamily, column, data, namespace, null);
+    }
+
+    public CompletableFuture<Void> put(String tableName, String rowKey, String columnFamily, String column, String data) {
+        return put(tableName, rowKey, columnFamily, column, data, null, null);
+    }
+
+    /**
+     * 保存数据
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param keyValues,   K: column qualifier,V: data
+     * @param namespace
+     * @param timeout      为空时使用默认超时时间
+     * @return CompletableFuture<Void>
+     */
+    public CompletableFuture<Void> put(String tableName, String rowKey, String columnFamily, Map<String, String> keyValues, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        Put put = new Put(hBaseUtil.rowBytes(fullName, rowKey));
+        byte[] cfBytes = Bytes.toBytes(columnFamily);
+        keyValues.forEach((k, v) -> put.addColumn(cfBytes, Bytes.toBytes(k), Bytes.toBytes(v)));
+        return mutate(fullName, rowKey, put, timeout,
+                () -> String.format("保存数据失败,table:%s,rowKey:%s,columnFamily:%s", fullName, rowKey, columnFamily));
+    }
+
+    public CompletableFuture<Void> put(String tableName, String rowKey, String columnFamily, Map<String, String> keyValues, String namespace) {
+        return put(tableName, rowKey, columnFamily, keyValues, namespace, null);
+    }
+
+    public CompletableFuture<Void> put(String tableName, String rowKey, String columnFamily, Map<String, String> keyValues) {
+        return put(tableName, rowKey, columnFamily, keyValues, null, null);
+    }
+
+    /**
+     * 获取某个列的数据
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param column
+     * @param namespace
+     * @param timeout      为空时使用默认超时时间
+     * @return CompletableFuture<String>
+     */
+    public CompletableFuture<String> getColumn(String tableName, String rowKey, String columnFamily, String column, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        return execute(fullName, timeout, table -> {
+            Get get = new Get(hBaseUtil.rowBytes(fullName, rowKey));
+            get.addColumn(Bytes.toBytes(columnFamily), Bytes.toBytes(column));
+            return table.get(get);
+        }, result -> Bytes.toString(result.value()),
+                () -> String.format("获取数据失败,table:%s,rowKey:%s,columnFamily:%s,column:%s", fullName, rowKey, columnFamily, column));
+    }
+
+    public CompletableFuture<String> getColumn(String tableName, String rowKey, String columnFamily, String column, String namespace) {
+        return getColumn(tableName, rowKey, columnFamily, column, namespace, null);
+    }
+
+    public CompletableFuture<String> getColumn(String tableName, String rowKey, String columnFamily, String column) {
+        return getColumn(tableName, rowKey, columnFamily, column, null, null);
+    }
+
+    /**
+     * 获取某个列族数据
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param namespace
+     * @param timeout      为空时使用默认超时时间
+     * @return CompletableFuture<Map<column Qualifier, String>>
+     */
+    public CompletableFuture<Map<String, String>> getColumnFamily(String tableName, String rowKey, String columnFamily, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        return execute(fullName, timeout, table -> {
+            Get get = new Get(hBaseUtil.rowBytes(fullName, rowKey));
+            get.addFamily(Bytes.toBytes(columnFamily));
+            return table.get(get);
+        }, HBaseUtil::familyToMap, () -> String.format("获取数据失败,table:%s,rowKey:%s,columnFamily:%s", fullName, rowKey, columnFamily));
+    }
+
+    public CompletableFuture<Map<String, String>> getColumnFamily(String tableName, String rowKey, String columnFamily, String namespace) {
+        return getColumnFamily(tableName, rowKey, columnFamily, namespace, null);
+    }
+
+    public CompletableFuture<Map<String, String>> getColumnFamily(String tableName, String rowKey, String columnFamily) {
+        return getColumnFamily(tableName, rowKey, columnFamily, null, null);
+    }
+
+    /**
+     * 获取某行数据
+     *
+     * @param tableName
+     * @param rowKey
+     * @param namespace
+     * @param timeout   为空时使用默认超时时间
+     * @return CompletableFuture<Map<Column Family, Map<Column Qualifier, Value>>>
+     */
+    public CompletableFuture<Map<String, Map<String, String>>> getRow(String tableName, String rowKey, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        return execute(fullName, timeout, table -> table.get(new Get(hBaseUtil.rowBytes(fullName, rowKey))),
+                HBaseUtil::resultToMap, () -> String.format("获取数据失败,table:%s,rowKey:%s", fullName, rowKey));
+    }
+
+    public CompletableFuture<Map<String, Map<String, String>>> getRow(String tableName, String rowKey, String namespace) {
+        return getRow(tableName, rowKey, namespace, null);
+    }
+
+    public CompletableFuture<Map<String, Map<String, String>>> getRow(String tableName, String rowKey) {
+        return getRow(tableName, rowKey, null, null);
+    }
+
+    /**
+     * 删除某行数据
+     *
+     * @param tableName
+     * @param rowKey
+     * @param namespace
+     * @param timeout   为空时使用默认超时时间
+     * @return CompletableFuture<Void>
+     */
+    public CompletableFuture<Void> deleteRow(String tableName, String rowKey, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        return mutate(fullName, rowKey, new Delete(hBaseUtil.rowBytes(fullName, rowKey)), timeout,
+                () -> String.format("删除数据失败,table:%s,rowKey:%s", fullName, rowKey));
+    }
+
+    public CompletableFuture<Void> deleteRow(String tableName, String rowKey, String namespace) {
+        return deleteRow(tableName, rowKey, namespace, null);
+    }
+
+    public CompletableFuture<Void> deleteRow(String tableName, String rowKey) {
+        return deleteRow(tableName, rowKey, null, null);
+    }
+
+    /**
+     * 删除某行某列族数据
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamilies
+     * @param namespace
+     * @param timeout        为空时使用默认超时时间
+     * @return CompletableFuture<Void>
+     */
+    public CompletableFuture<Void> deleteColumnFamily(String tableName, String rowKey, String[] columnFamilies, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        Delete delete = new Delete(hBaseUtil.rowBytes(fullName, rowKey));
+        for (String columnFamily : columnFamilies) {
+            delete.addFamily(Bytes.toBytes(columnFamily));
+        }
+        return mutate(fullName, rowKey, delete, timeout, () -> String.format("删除数据失败,table:%s,rowKey:%s", fullName, rowKey));
+    }
+
+    public CompletableFuture<Void> deleteColumnFamily(String tableName, String rowKey, String[] columnFamilies, String namespace) {
+        return deleteColumnFamily(tableName, rowKey, columnFamilies, namespace, null);
+    }
+
+    public CompletableFuture<Void> deleteColumnFamily(String tableName, String rowKey, String[] columnFamilies) {
+        return deleteColumnFamily(tableName, rowKey, columnFamilies, null, null);
+    }
+
+    /**
+     * 删除某行某列族的某些列
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param columns
+     * @param namespace
+     * @param timeout      为空时使用默认超时时间
+     * @return CompletableFuture<Void>
+     */
+    public CompletableFuture<Void> deleteColumn(String tableName, String rowKey, String columnFamily, String[] columns, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        Delete delete = new Delete(hBaseUtil.rowBytes(fullName, rowKey));
+        byte[] cfBytes = Bytes.toBytes(columnFamily);
+        for (String column : columns) {
+            delete.addColumn(cfBytes, Bytes.toBytes(column));
+        }
+        return mutate(fullName, rowKey, delete, timeout,
+                () -> String.format("删除数据失败,table:%s,rowKey:%s,columnFamily:%s", fullName, rowKey, columnFamily));
+    }
+
+    public CompletableFuture<Void> deleteColumn(String tableName, String rowKey, String columnFamily, String[] columns, String namespace) {
+        return deleteColumn(tableName, rowKey, columnFamily, columns, namespace, null);
+    }
+
+    public CompletableFuture<Void> deleteColumn(String tableName, String rowKey, String columnFamily, String[] columns) {
+        return deleteColumn(tableName, rowKey, columnFamily, columns, null, null);
+    }
+
+    /**
+     * 扫描数据
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies
+     * @param namespace
+     * @param timeout        为空时使用默认超时时间
+     * @return CompletableFuture<Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>>
+     */
+    public CompletableFuture<Map<String, Map<String, Map<String, String>>>> scan(String tableName, String startRow, String stopRow, String[] columnFamilies, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        RowKeyStrategy strategy = hBaseUtil.getRowKeyStrategy(fullName);
+        return execute(fullName, timeout, table -> {
+            Scan scan = HBaseUtil.buildScan(startRow, stopRow, null);
+            if (columnFamilies != null && columnFamilies.length > 0) {
+                for (String columnFamily : columnFamilies) {
+                    scan.addFamily(Bytes.toBytes(columnFamily));
+                }
+            }
+            return scanAll(table, scan, strategy, startRow, stopRow);
+        }, results -> resultsToMap(results, strategy), () -> String.format("扫描数据失败,table:%s", fullName));
+    }
+
+    public CompletableFuture<Map<String, Map<String, Map<String, String>>>> scan(String tableName, String startRow, String stopRow, String[] columnFamilies, String namespace) {
+        return scan(tableName, startRow, stopRow, columnFamilies, namespace, null);
+    }
+
+    public CompletableFuture<Map<String, Map<String, Map<String, String>>>> scan(String tableName, String startRow, String stopRow, String[] columnFamilies) {
+        return scan(tableName, startRow, stopRow, columnFamilies, null, null);
+    }
+
+    /**
+     * 扫描某个列族数据
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamily
+     * @param columns
+     * @param namespace
+     * @param timeout      为空时使用默认超时时间
+     * @return CompletableFuture<Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>>
+     */
+    public CompletableFuture<Map<String, Map<String, Map<String, String>>>> scanColumnFamily(String tableName, String startRow, String stopRow, String columnFamily, String[] columns, String namespace, Duration timeout) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        RowKeyStrategy strategy = hBaseUtil.getRowKeyStrategy(fullName);
+        return execute(fullName, timeout, table -> {
+            Scan scan = HBaseUtil.buildScan(startRow, stopRow, null);
+            if (StringUtils.isNotBlank(columnFamily) && columns != null && columns.length > 0) {
+                byte[] colFamily = Bytes.toBytes(columnFamily);
+                for (String column : columns) {
+                    scan.addColumn(colFamily, Bytes.toBytes(column));
+                }
+            }
+            return scanAll(table, scan, strategy, startRow, stopRow);
+        }, results -> resultsToMap(results, strategy), () -> String.format("扫描数据失败,table:%s", fullName));
+    }
+
+    public CompletableFuture<Map<String, Map<String, Map<String, String>>>> scanColumnFamily(String tableName, String startRow, String stopRow, String columnFamily, String[] columns, String namespace) {
+        return scanColumnFamily(tableName, startRow, stopRow, columnFamily, columns, namespace, null);
+    }
+
+    public CompletableFuture<Map<String, Map<String, Map<String, String>>>> scanColumnFamily(String tableName, String startRow, String stopRow, String columnFamily, String[] columns) {
+        return scanColumnFamily(tableName, startRow, stopRow, columnFamily, columns, null, null);
+    }
+
+    private <T> CompletableFuture<T> execute(String tableName, Duration timeout,
+                                             Function<AsyncTable<ScanResultConsumer>, CompletableFuture<T>> action,
+                                             Supplier<String> errorMsg) {
+        return execute(tableName, timeout, action, value -> value, errorMsg);
+    }
+
+    /**
+     * 写入单行;表有二级索引时与HBaseUtil一致,先在回调线程池中写入新的索引条目,数据写入成功后删除旧条目
+     * 写入成功后使该行的热点行缓存失效
+     */
+    private CompletableFuture<Void> mutate(String tableName, String rowKey, Mutation mutation, Duration timeout, Supplier<String> errorMsg) {
+        Function<AsyncTable<ScanResultConsumer>, CompletableFuture<Void>> action =
+                table -> mutation instanceof Put ? table.put((Put) mutation) : table.delete((Delete) mutation);
+        CompletableFuture<IndexManager.IndexUpdate> indexed = !hBaseUtil.hasIndex(tableName)
+                ? CompletableFuture.completedFuture(null)
+                : CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return hBaseUtil.beforeWrite(tableName, rowKey, mutation);
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                }, callbackExecutor);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        indexed.whenComplete((update, e) -> {
+            if (e != null) {
+                future.completeExceptionally(translate(tableName, e, errorMsg));
+                return;
+            }
+            execute(tableName, timeout, action, errorMsg).whenComplete((value, ex) -> {
+                if (ex != null) {
+                    future.completeExceptionally(ex);
+                    return;
+                }
+                HBaseUtil.afterWrite(update);
+                hBaseUtil.getHotRowCache().invalidate(tableName, rowKey);
+                future.complete(null);
+            });
+        });
+        return future;
+    }
+
+    /**
+     * 执行异步操作,decoder在回调线程池中执行,异常统一转换为LabradorException
+     */
+    private <R, T> CompletableFuture<T> execute(String tableName, Duration timeout,
+                                                Function<AsyncTable<ScanResultConsumer>, CompletableFuture<R>> action,
+                                                Decoder<R, T> decoder, Supplier<String> errorMsg) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<R> response;
+        try {
+            response = action.apply(getTable(TableName.valueOf(tableName), timeout));
+        } catch (Exception e) {
+            response = CompletableFuture.failedFuture(e);
+        }
+        response.whenComplete((value, e) -> {
+            if (e != null) {
+                future.completeExceptionally(translate(tableName, e, errorMsg));
+                return;
+            }
+            try {
+                future.complete(decoder.decode(value));
+            } catch (Exception ex) {
+                future.completeExceptionally(translate(tableName, ex, errorMsg));
+            }
+        });
+        return future;
+    }
+
+    private AsyncTable<ScanResultConsumer> getTable(TableName tabName, Duration timeout) {
+        long millis = timeout != null ? timeout.toMillis() : operationTimeout;
+        return connection.getTableBuilder(tabName, callbackExecutor)
+                .setOperationTimeout(millis, TimeUnit.MILLISECONDS)
+                .setScanTimeout(millis, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * 共享的异步连接,供ReactiveHBaseClient使用
+     */
+    AsyncConnection getConnection() {
+        return connection;
+    }
+
+    LabradorException translate(String tableName, Throwable e, Supplier<String> errorMsg) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof LabradorException)
+            return (LabradorException) cause;
+        for (Throwable t = cause; t != null; t = t.getCause()) {
+            if (t instanceof TableNotFoundException) {
+                hBaseUtil.getTableMetaCache().invalidate(TableName.valueOf(tableName));
+                return new LabradorException(ErrorCode.TABLE_NOT_FOUND, String.format("表 %s 不存在", tableName));
+            }
+        }
+        String msg = errorMsg.get();
+        log.error(msg, cause);
+        return new LabradorException(ErrorCode.of(cause), msg);
+    }
+
+    /**
+     * 配置了rowKey策略时各范围并行scanAll,全部完成后合并
+     */
+    private static CompletableFuture<List<Result>> scanAll(AsyncTable<ScanResultConsumer> table, Scan scan, RowKeyStrategy strategy,
+                                                           String startRow, String stopRow) {
+        if (strategy == null)
+            return table.scanAll(scan);
+        List<CompletableFuture<List<Result>>> futures = new ArrayList<>();
+        try {
+            for (String[] range : strategy.scanRanges(startRow, stopRow)) {
+                Scan rangeScan = new Scan(scan)
+                        .withStartRow(range[0] == null ? HConstants.EMPTY_START_ROW : Bytes.toBytes(range[0]))
+                        .withStopRow(range[1] == null ? HConstants.EMPTY_END_ROW : Bytes.toBytes(range[1]));
+                futures.add(table.scanAll(rangeScan));
+            }
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<Result> results = new ArrayList<>();
+            futures.forEach(future -> results.addAll(future.join()));
+            return results;
+        });
+    }
+
+    /**
+     * 配置了rowKey策略时按原始rowKey排序
+     */
+    private static Map<String, Map<String, Map<String, String>>> resultsToMap(List<Result> results, RowKeyStrategy strategy) throws IOException {
+        Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
+        if (strategy == null) {
+            for (Result result : results) {
+                rows.put(Bytes.toString(result.getRow()), HBaseUtil.resultToMap(result));
+            }
+            return rows;
+        }
+        Map<byte[], Result> sorted = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+        for (Result result : results) {
+            sorted.put(Bytes.toBytes(strategy.decode(Bytes.toString(result.getRow()))), result);
+        }
+        sorted.forEach((rowKey, result) -> rows.put(Bytes.toString(rowKey), HBaseUtil.resultToMap(result)));
+        return rows;
+    }
+
+    @PostConstruct
+    private void init() throws Exception {
+        AtomicInteger threadIndex = new AtomicInteger();
+        callbackExecutor = Executors.newFixedThreadPool(Math.max(callbackThreads, 1), r -> {
+            Thread thread = new Thread(r, "hbase-async-callback-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        connection = ConnectionFactory.createAsyncConnection(hBaseUtil.getConfiguration()).get();
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                log.warn("关闭HBase异步连接失败.", e);
+            }
+        }
+        if (callbackExecutor != null)
+            callbackExecutor.shutdown();
+    }
+
+    @FunctionalInterface
+    private interface Decoder<R, T> {
+        T decode(R value) throws IOException;
+    }
+}
@@ -0,0 +1,35 @@
+package com.wt.labrador.util;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 批量操作中单个rowKey的执行结果
+ *
+ * @author 一贫
+ * @date 2021/10/11
+ */
+@Getter
+@ToString
+public class BatchResult<T> {
+
+    private final boolean success;
+
+    private final T value;
+
+    private final String error;
+
+    private BatchResult(boolean success, T value, String error) {
+        this.success = success;
+        this.value = value;
+        this.error = error;
+    }
+
+    public static <T> BatchResult<T> success(T value) {
+        return new BatchResult<>(true, value, null);
+    }
+
+    public static <T> BatchResult<T> failure(String error) {
+        return new BatchResult<>(false, null, error);
+    }
+}
@@ -0,0 +1,58 @@
+package com.wt.labrador.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 分桶前缀策略,存储的rowKey为"定长桶前缀+原始rowKey",同一个桶内按原始rowKey有序
+ * 扫描时每个桶一个范围
+ *
+ * @author 一贫
+ * @date 2021/10/30
+ */
+abstract class BucketRowKeyStrategy implements RowKeyStrategy {
+
+    private final List<String> prefixes;
+
+    private final int prefixLength;
+
+    /**
+     * @param prefixes 所有桶的前缀,长度必须相同且以'_'结尾
+     */
+    BucketRowKeyStrategy(List<String> prefixes) {
+        this.prefixes = Collections.unmodifiableList(prefixes);
+        this.prefixLength = prefixes.get(0).length();
+    }
+
+    /**
+     * 原始rowKey所在桶的前缀
+     */
+    abstract String prefix(String rowKey);
+
+    @Override
+    public String encode(String rowKey) {
+        return prefix(rowKey) + rowKey;
+    }
+
+    @Override
+    public String decode(String storedKey) {
+        return storedKey.length() >= prefixLength ? storedKey.substring(prefixLength) : storedKey;
+    }
+
+    @Override
+    public List<String[]> scanRanges(String startRow, String stopRow) {
+        List<String[]> ranges = new ArrayList<>(prefixes.size());
+        for (String prefix : prefixes) {
+            String start = startRow == null || startRow.isEmpty() ? prefix : prefix + startRow;
+            // 无结束位置时扫描到该桶末尾,'`'是'_'的下一个字符
+            String stop = stopRow == null || stopRow.isEmpty() ? prefix.substring(0, prefixLength - 1) + '`' : prefix + stopRow;
+            ranges.add(new String[]{start, stop});
+        }
+        return ranges;
+    }
+
+    List<String> getPrefixes() {
+        return prefixes;
+    }
+}
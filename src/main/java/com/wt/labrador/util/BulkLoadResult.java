@@ -0,0 +1,30 @@
+package com.wt.labrador.util;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 批量导入结果
+ *
+ * @author 一贫
+ * @date 2021/11/4
+ */
+@Getter
+@ToString
+public class BulkLoadResult {
+
+    private final long rows;
+
+    /**
+     * 写入的单元格数,重复的rowKey+列只计一次
+     */
+    private final long cells;
+
+    private final int files;
+
+    public BulkLoadResult(long rows, long cells, int files) {
+        this.rows = rows;
+        this.cells = cells;
+        this.files = files;
+    }
+}
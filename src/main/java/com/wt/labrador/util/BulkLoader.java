@@ -0,0 +1,217 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
+import org.apache.hadoop.hbase.io.hfile.HFileContext;
+import org.apache.hadoop.hbase.io.hfile.HFileContextBuilder;
+import org.apache.hadoop.hbase.regionserver.HStoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.hadoop.hbase.tool.BulkLoadHFiles;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 批量导入,不经过WAL和memstore,直接生成HFile后通过bulk load移动到Region中
+ * 输入的行按bufferSize分段,每段在内存中排序后按Region边界和列族切分写入HFile,输入不需要有序;
+ * 全部写完后一次bulk load,同一Region的文件原子生效
+ * HFile的压缩,编码,布隆过滤器,块大小与表的列族参数一致
+ * 非线程安全,每次导入创建一个
+ *
+ * @author 一贫
+ * @date 2021/11/4
+ */
+@Slf4j
+class BulkLoader {
+
+    private final Configuration config;
+
+    private final Connection connection;
+
+    private final HBaseHandleManager handleManager;
+
+    private final TableName tableName;
+
+    private final RowKeyStrategy rowKeyStrategy;
+
+    private final Path stagingDir;
+
+    private final long bufferSize;
+
+    /**
+     * 同一次导入的所有单元格使用相同的时间戳
+     */
+    private final long timestamp = System.currentTimeMillis();
+
+    private final List<Cell> buffer = new ArrayList<>();
+
+    private long bufferedBytes;
+
+    private byte[][] startKeys;
+
+    /**
+     * K: 列族,V: 列族参数
+     */
+    private final Map<String, ColumnFamilyDescriptor> families = new HashMap<>();
+
+    private FileSystem fs;
+
+    private long rows;
+
+    private long cells;
+
+    private int files;
+
+    /**
+     * @param stagingDir 存放HFile的临时目录,RegionServer需要能访问,远程集群应使用hdfs://路径
+     * @param bufferSize 每段排序的最大数据量,字节
+     */
+    BulkLoader(Configuration config, Connection connection, HBaseHandleManager handleManager, TableName tableName,
+               RowKeyStrategy rowKeyStrategy, String stagingDir, long bufferSize) {
+        this.config = config;
+        this.connection = connection;
+        this.handleManager = handleManager;
+        this.tableName = tableName;
+        this.rowKeyStrategy = rowKeyStrategy;
+        this.stagingDir = new Path(stagingDir, tableName.getNameWithNamespaceInclAsString().replace(':', '_') + "_" + UUID.randomUUID());
+        this.bufferSize = Math.max(bufferSize, 1024 * 1024);
+    }
+
+    BulkLoadResult load(Iterator<HBaseRow> input) throws IOException {
+        prepare();
+        try {
+            while (input.hasNext()) {
+                add(input.next());
+            }
+            flushBuffer();
+            if (files > 0)
+                BulkLoadHFiles.create(config).bulkLoad(tableName, stagingDir);
+            log.info("批量导入完成,table:{},行数:{},单元格数:{},HFile数:{}", tableName, rows, cells, files);
+            return new BulkLoadResult(rows, cells, files);
+        } finally {
+            // bulk load成功后HFile已被移走,这里清理目录及失败时残留的文件
+            fs.delete(stagingDir, true);
+        }
+    }
+
+    private void prepare() throws IOException {
+        TableDescriptor descriptor;
+        try (Admin admin = handleManager.getAdmin()) {
+            descriptor = admin.getDescriptor(tableName);
+        }
+        for (ColumnFamilyDescriptor family : descriptor.getColumnFamilies()) {
+            families.put(family.getNameAsString(), family);
+        }
+        try (RegionLocator locator = connection.getRegionLocator(tableName)) {
+            startKeys = locator.getStartKeys();
+        }
+        Arrays.sort(startKeys, Bytes.BYTES_COMPARATOR);
+        fs = stagingDir.getFileSystem(config);
+    }
+
+    private void add(HBaseRow row) throws IOException {
+        byte[] rowBytes = Bytes.toBytes(rowKeyStrategy == null ? row.getRowKey() : rowKeyStrategy.encode(row.getRowKey()));
+        for (Map.Entry<String, Map<String, String>> family : row.getFamilies().entrySet()) {
+            if (!families.containsKey(family.getKey()))
+                throw new LabradorException(String.format("表 %s 不存在列族 %s", tableName, family.getKey()));
+            byte[] cfBytes = Bytes.toBytes(family.getKey());
+            for (Map.Entry<String, String> column : family.getValue().entrySet()) {
+                KeyValue kv = new KeyValue(rowBytes, cfBytes, Bytes.toBytes(column.getKey()), timestamp,
+                        KeyValue.Type.Put, Bytes.toBytes(column.getValue()));
+                buffer.add(kv);
+                bufferedBytes += kv.heapSize();
+            }
+        }
+        rows++;
+        if (bufferedBytes >= bufferSize)
+            flushBuffer();
+    }
+
+    /**
+     * 排序当前段,按Region和列族切分写入HFile;rowKey,列相同的单元格只保留最后输入的一个
+     */
+    private void flushBuffer() throws IOException {
+        if (buffer.isEmpty())
+            return;
+        // List.sort是稳定排序,相同key的单元格保持输入顺序
+        buffer.sort(CellComparator.getInstance());
+        // 排序后按rowKey有序,同一行内才按列族有序;每个列族一个打开的文件,切换Region时全部关闭
+        Map<String, StoreFileWriter> writers = new HashMap<>();
+        int writerRegion = -1;
+        try {
+            for (int i = 0; i < buffer.size(); i++) {
+                Cell cell = buffer.get(i);
+                if (i + 1 < buffer.size() && CellComparator.getInstance().compare(cell, buffer.get(i + 1)) == 0)
+                    continue;
+                int region = regionOf(cell);
+                if (region != writerRegion) {
+                    closeWriters(writers);
+                    writerRegion = region;
+                }
+                String family = Bytes.toString(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
+                StoreFileWriter writer = writers.get(family);
+                if (writer == null) {
+                    writer = createWriter(families.get(family));
+                    writers.put(family, writer);
+                }
+                writer.append(cell);
+                cells++;
+            }
+        } finally {
+            closeWriters(writers);
+        }
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    private int regionOf(Cell cell) {
+        byte[] row = Arrays.copyOfRange(cell.getRowArray(), cell.getRowOffset(), cell.getRowOffset() + cell.getRowLength());
+        int index = Arrays.binarySearch(startKeys, row, Bytes.BYTES_COMPARATOR);
+        return index >= 0 ? index : Math.max(-index - 2, 0);
+    }
+
+    private StoreFileWriter createWriter(ColumnFamilyDescriptor family) throws IOException {
+        HFileContext context = new HFileContextBuilder()
+                .withCompression(family.getCompressionType())
+                .withDataBlockEncoding(family.getDataBlockEncoding())
+                .withBlockSize(family.getBlocksize())
+                .withColumnFamily(family.getName())
+                .withTableName(tableName.getName())
+                .build();
+        Path familyDir = new Path(stagingDir, family.getNameAsString());
+        fs.mkdirs(familyDir);
+        files++;
+        return new StoreFileWriter.Builder(config, CacheConfig.DISABLED, fs)
+                .withFilePath(new Path(familyDir, UUID.randomUUID().toString().replace("-", "")))
+                .withBloomType(family.getBloomFilterType())
+                .withFileContext(context)
+                .build();
+    }
+
+    private void closeWriters(Map<String, StoreFileWriter> writers) throws IOException {
+        try {
+            for (StoreFileWriter writer : writers.values()) {
+                writer.appendFileInfo(HStoreFile.BULKLOAD_TIME_KEY, Bytes.toBytes(System.currentTimeMillis()));
+                writer.appendFileInfo(HStoreFile.MAJOR_COMPACTION_KEY, Bytes.toBytes(false));
+                writer.appendTrackedTimestampsToMetadata();
+                writer.close();
+            }
+        } finally {
+            writers.clear();
+        }
+    }
+}
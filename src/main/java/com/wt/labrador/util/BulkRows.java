@@ -0,0 +1,145 @@
+package com.wt.labrador.util;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wt.labrador.exception.LabradorException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * 批量导入的输入源,逐行读取,不会把整个文件加载到内存
+ *
+ * @author 一贫
+ * @date 2021/11/4
+ */
+public final class BulkRows {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Map<String, String>>> FAMILIES_TYPE = new TypeReference<Map<String, Map<String, String>>>() {
+    };
+
+    private BulkRows() {
+    }
+
+    /**
+     * CSV,每行第一个字段为rowKey,其余字段依次对应columns,空字段不写入
+     * 字段可用双引号包围,引号内的""表示一个双引号,不支持字段内换行
+     *
+     * @param reader       输入,读完后不会关闭
+     * @param separator    分隔符
+     * @param columnFamily 列族
+     * @param columns      列名,与rowKey之后的字段一一对应
+     * @return Iterator<HBaseRow>
+     */
+    public static Iterator<HBaseRow> csv(Reader reader, char separator, String columnFamily, String[] columns) {
+        return new LineIterator(reader) {
+            @Override
+            HBaseRow parse(String line) {
+                List<String> fields = splitCsv(line, separator);
+                Map<String, String> values = new HashMap<>();
+                for (int i = 1; i < fields.size() && i <= columns.length; i++) {
+                    if (!fields.get(i).isEmpty())
+                        values.put(columns[i - 1], fields.get(i));
+                }
+                return new HBaseRow(fields.get(0), Collections.singletonMap(columnFamily, values));
+            }
+        };
+    }
+
+    /**
+     * JSON Lines,每行一个对象: {"rowKey":"qiyu","families":{"info":{"name":"qiyu"}}}
+     *
+     * @param reader 输入,读完后不会关闭
+     * @return Iterator<HBaseRow>
+     */
+    public static Iterator<HBaseRow> jsonLines(Reader reader) {
+        return new LineIterator(reader) {
+            @Override
+            HBaseRow parse(String line) throws IOException {
+                Map<String, Object> node = MAPPER.readValue(line, new TypeReference<Map<String, Object>>() {
+                });
+                Object rowKey = node.get("rowKey");
+                if (rowKey == null)
+                    throw new LabradorException(String.format("缺少rowKey:%s", line));
+                Map<String, Map<String, String>> families = MAPPER.convertValue(node.get("families"), FAMILIES_TYPE);
+                return new HBaseRow(rowKey.toString(), families == null ? Collections.emptyMap() : families);
+            }
+        };
+    }
+
+    static List<String> splitCsv(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"')
+                    field.append(c);
+                else if (i + 1 < line.length() && line.charAt(i + 1) == '"')
+                    field.append(line.charAt(++i));
+                else
+                    quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * 跳过空行
+     */
+    private abstract static class LineIterator implements Iterator<HBaseRow> {
+
+        private final BufferedReader reader;
+
+        private String next;
+
+        private LineIterator(Reader reader) {
+            this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        }
+
+        abstract HBaseRow parse(String line) throws IOException;
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (next == null) {
+                    String line = reader.readLine();
+                    if (line == null)
+                        return false;
+                    if (!line.trim().isEmpty())
+                        next = line;
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public HBaseRow next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            String line = next;
+            next = null;
+            try {
+                return parse(line);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.wt.labrador.util;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * 单元格只读视图,直接按offset/length读取Cell底层数组,不复制family,qualifier,value
+ * 数值类型按Bytes.toBytes(long/int/double)的编码读取,与ValueCodec写入的格式一致
+ *
+ * @author 一贫
+ * @date 2021/10/21
+ */
+public final class CellView {
+
+    private Cell cell;
+
+    private CellView(Cell cell) {
+        this.cell = cell;
+    }
+
+    public static CellView of(Cell cell) {
+        return new CellView(cell);
+    }
+
+    /**
+     * 获取某列最新版本的单元格,不存在时返回null
+     *
+     * @param result
+     * @param family
+     * @param qualifier
+     * @return CellView
+     */
+    public static CellView latest(Result result, byte[] family, byte[] qualifier) {
+        Cell cell = result.getColumnLatestCell(family, qualifier);
+        return cell == null ? null : new CellView(cell);
+    }
+
+    /**
+     * 遍历一行中的所有单元格,回调中的CellView会被复用,不能在回调之外持有
+     *
+     * @param result
+     * @param consumer
+     * @return void
+     */
+    public static void forEach(Result result, Consumer<CellView> consumer) {
+        Cell[] cells = result.rawCells();
+        if (cells == null || cells.length == 0)
+            return;
+        CellView view = new CellView(null);
+        for (Cell cell : cells) {
+            view.cell = cell;
+            consumer.accept(view);
+        }
+    }
+
+    public Cell getCell() {
+        return cell;
+    }
+
+    public long getTimestamp() {
+        return cell.getTimestamp();
+    }
+
+    public boolean matchesFamily(byte[] family) {
+        return Bytes.equals(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength(), family, 0, family.length);
+    }
+
+    public boolean matchesQualifier(byte[] qualifier) {
+        return Bytes.equals(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength(), qualifier, 0, qualifier.length);
+    }
+
+    public String familyAsString() {
+        return Bytes.toString(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
+    }
+
+    public String qualifierAsString() {
+        return Bytes.toString(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+    }
+
+    public int valueLength() {
+        return cell.getValueLength();
+    }
+
+    public String valueAsString() {
+        return Bytes.toString(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+    }
+
+    public long valueAsLong() {
+        return Bytes.toLong(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+    }
+
+    public int valueAsInt() {
+        return Bytes.toInt(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+    }
+
+    public double valueAsDouble() {
+        if (cell.getValueLength() != Bytes.SIZEOF_DOUBLE)
+            throw new IllegalArgumentException("值长度不是" + Bytes.SIZEOF_DOUBLE + "字节,无法转换为double.");
+        return Bytes.toDouble(cell.getValueArray(), cell.getValueOffset());
+    }
+
+    /**
+     * 复制一份value
+     */
+    public byte[] valueAsBytes() {
+        return Bytes.copy(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+    }
+
+    /**
+     * 不复制,返回指向Cell底层数组的只读ByteBuffer
+     */
+    public ByteBuffer valueAsByteBuffer() {
+        return ByteBuffer.wrap(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength()).slice().asReadOnlyBuffer();
+    }
+}
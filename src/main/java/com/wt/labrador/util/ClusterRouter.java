@@ -0,0 +1,115 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 多集群路由,按操作类型选择集群;写入及DDL始终在主集群执行
+ * 配置了故障转移集群时,路由到主集群的读请求按主集群的失败率和慢调用率熔断,
+ * 熔断期间读请求转到故障转移集群,半开时放行少量探测请求回主集群,成功后恢复
+ * 副本集群通过HBase复制从主集群异步同步,读到的数据可能稍旧
+ *
+ * @author 一贫
+ * @date 2021/11/8
+ */
+@Slf4j
+public class ClusterRouter {
+
+    public enum Operation {
+        /**
+         * 按rowKey读取
+         */
+        READ,
+        /**
+         * 扫描
+         */
+        SCAN
+    }
+
+    private final Map<String, HBaseCluster> clusters;
+
+    private final HBaseCluster primary;
+
+    private final Map<Operation, HBaseCluster> routes = new EnumMap<>(Operation.class);
+
+    private final HBaseCluster failover;
+
+    private final TableGuard primaryHealth;
+
+    /**
+     * @param clusters      K: 集群名,包含主集群
+     * @param primary       主集群名
+     * @param routes        V: 集群名,未配置的操作路由到主集群
+     * @param failover      读故障转移集群名,为空时不转移
+     * @param primaryHealth 主集群读请求的熔断器,failover为空时不使用
+     */
+    ClusterRouter(Map<String, HBaseCluster> clusters, String primary, Map<Operation, String> routes, String failover, TableGuard primaryHealth) {
+        this.clusters = clusters;
+        this.primary = cluster(primary);
+        for (Operation operation : Operation.values()) {
+            String target = routes.get(operation);
+            this.routes.put(operation, target == null || target.isEmpty() ? this.primary : cluster(target));
+        }
+        this.failover = failover == null || failover.isEmpty() ? null : cluster(failover);
+        this.primaryHealth = primaryHealth;
+    }
+
+    /**
+     * 选择执行操作的集群
+     *
+     * @param operation 操作类型
+     * @param permits   路由到主集群并开启故障转移时,接收主集群熔断器的许可,操作结束后需要释放
+     * @return HBaseCluster
+     */
+    HBaseCluster route(Operation operation, Consumer<TableGuard.Permit> permits) {
+        HBaseCluster target = routes.get(operation);
+        if (failover == null || target != primary)
+            return target;
+        try {
+            permits.accept(primaryHealth.acquire());
+            return primary;
+        } catch (LabradorException e) {
+            log.debug("主集群 {} 已熔断,{} 请求转到集群 {}", primary.getName(), operation, failover.getName());
+            return failover;
+        }
+    }
+
+    /**
+     * 该类操作是否路由到主集群并可在主集群熔断时转移
+     */
+    boolean canFailover(Operation operation) {
+        return failover != null && routes.get(operation) == primary;
+    }
+
+    public HBaseCluster getPrimary() {
+        return primary;
+    }
+
+    public HBaseCluster getCluster(String name) {
+        return clusters.get(name);
+    }
+
+    public Collection<HBaseCluster> getClusters() {
+        return Collections.unmodifiableCollection(clusters.values());
+    }
+
+    /**
+     * 主集群读请求的熔断状态,未开启故障转移时返回null
+     */
+    public TableGuard getPrimaryHealth() {
+        return failover == null ? null : primaryHealth;
+    }
+
+    private HBaseCluster cluster(String name) {
+        HBaseCluster cluster = clusters.get(name);
+        if (cluster == null)
+            throw new LabradorException(String.format("未配置集群 %s", name));
+        return cluster;
+    }
+}
@@ -0,0 +1,261 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 计数器缓冲,每张表一个,线程安全
+ * 同一个计数器的增量先在客户端累加,定时或缓冲的计数器数达到上限时合并为每行一个Increment批量提交,
+ * 适用于PV,点赞数等高频且允许短暂延迟的计数
+ * 提交失败的增量会合并回缓冲区等待下次提交;若服务端已执行而客户端超时,重试会导致重复计数
+ *
+ * @author 一贫
+ * @date 2021/11/2
+ */
+@Slf4j
+public class CounterBuffer implements Closeable {
+
+    private final TableName tableName;
+
+    private final HBaseHandleManager handleManager;
+
+    private final RowKeyStrategy rowKeyStrategy;
+
+    private final int maxPendingCounters;
+
+    private final IndexManager indexManager;
+
+    private final RowCache rowCache;
+
+    /**
+     * K: 计数器,V: 尚未提交的增量
+     * merge和remove都是原子的,提交时取出的增量不会与并发的add互相覆盖
+     */
+    private final ConcurrentHashMap<CounterKey, Long> pending = new ConcurrentHashMap<>();
+
+    private final LongAdder flushedCounters = new LongAdder();
+
+    private final LongAdder failedCounters = new LongAdder();
+
+    private final ScheduledFuture<?> flushTask;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * 同一时间只有一个线程提交
+     */
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    /**
+     * @param handleManager      Table句柄管理
+     * @param tableName          表名
+     * @param scheduler          定时提交的调度线程池
+     * @param flushInterval      定时提交间隔,毫秒,小于等于0时不定时提交
+     * @param maxPendingCounters 缓冲的计数器数上限,达到后同步提交,小于等于0时不限制
+     * @param rowKeyStrategy     rowKey策略,为空时直接使用原始rowKey
+     */
+    public CounterBuffer(HBaseHandleManager handleManager, TableName tableName, ScheduledExecutorService scheduler,
+                         long flushInterval, int maxPendingCounters, RowKeyStrategy rowKeyStrategy) {
+        this(handleManager, tableName, scheduler, flushInterval, maxPendingCounters, rowKeyStrategy, null, null);
+    }
+
+    /**
+     * @param indexManager 二级索引,不为空时拒绝累加索引列
+     * @param rowCache     热点行缓存,不为空时提交成功的行失效
+     */
+    CounterBuffer(HBaseHandleManager handleManager, TableName tableName, ScheduledExecutorService scheduler, long flushInterval,
+                  int maxPendingCounters, RowKeyStrategy rowKeyStrategy, IndexManager indexManager, RowCache rowCache) {
+        this.tableName = tableName;
+        this.handleManager = handleManager;
+        this.rowKeyStrategy = rowKeyStrategy;
+        this.maxPendingCounters = maxPendingCounters;
+        this.indexManager = indexManager;
+        this.rowCache = rowCache;
+        this.flushTask = flushInterval > 0
+                ? scheduler.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * 累加某个计数器,不发起RPC
+     */
+    public void add(String rowKey, String columnFamily, String column, long delta) {
+        if (closed.get())
+            throw new LabradorException(String.format("表 %s 的计数器缓冲已关闭", tableName));
+        if (indexManager != null)
+            indexManager.checkNotIndexed(tableName.getNameAsString(), columnFamily, column);
+        if (delta == 0)
+            return;
+        pending.merge(new CounterKey(rowKey, columnFamily, column), delta, Long::sum);
+        if (maxPendingCounters > 0 && pending.size() >= maxPendingCounters)
+            flush();
+    }
+
+    /**
+     * 将缓冲的增量同步提交到HBase
+     */
+    public void flush() {
+        if (pending.isEmpty())
+            return;
+        flushLock.lock();
+        try {
+            doFlush();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void doFlush() {
+        if (pending.isEmpty())
+            return;
+        Map<String, Increment> increments = new LinkedHashMap<>();
+        Map<String, List<CounterKey>> drained = new LinkedHashMap<>();
+        for (CounterKey key : pending.keySet()) {
+            Long delta = pending.remove(key);
+            if (delta == null || delta == 0)
+                continue;
+            increments.computeIfAbsent(key.rowKey, k -> new Increment(rowBytes(k)).setReturnResults(false))
+                    .addColumn(Bytes.toBytes(key.family), Bytes.toBytes(key.qualifier), delta);
+            drained.computeIfAbsent(key.rowKey, k -> new ArrayList<>()).add(key.withDelta(delta));
+        }
+        if (increments.isEmpty())
+            return;
+        List<Increment> actions = new ArrayList<>(increments.values());
+        List<List<CounterKey>> keys = new ArrayList<>(drained.values());
+        Object[] results = new Object[actions.size()];
+        try (Table table = handleManager.getTable(tableName)) {
+            table.batch(actions, results);
+        } catch (RetriesExhaustedWithDetailsException e) {
+            log.warn("提交计数器部分失败,table:{},失败数:{}", tableName, e.getNumExceptions());
+        } catch (Exception e) {
+            log.error(String.format("提交计数器失败,table:%s", tableName), e);
+        }
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null && !(results[i] instanceof Throwable)) {
+                flushedCounters.add(keys.get(i).size());
+                if (rowCache != null)
+                    rowCache.invalidate(tableName.getNameAsString(), keys.get(i).get(0).rowKey);
+                continue;
+            }
+            // 未成功的增量合并回缓冲区,下次提交时重试
+            for (CounterKey key : keys.get(i)) {
+                failedCounters.increment();
+                pending.merge(key.withDelta(0), key.delta, Long::sum);
+            }
+        }
+    }
+
+    /**
+     * 提交剩余的增量并停止定时提交
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+        if (flushTask != null)
+            flushTask.cancel(false);
+        flushQuietly();
+        if (!pending.isEmpty())
+            log.error("关闭计数器缓冲时仍有 {} 个计数器未提交,table:{}", pending.size(), tableName);
+    }
+
+    public TableName getTableName() {
+        return tableName;
+    }
+
+    /**
+     * 缓冲中尚未提交的计数器数
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * 累计提交成功的计数器数
+     */
+    public long getFlushedCount() {
+        return flushedCounters.sum();
+    }
+
+    /**
+     * 累计提交失败的计数器数,失败后会重新进入缓冲
+     */
+    public long getFailedCount() {
+        return failedCounters.sum();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.error(String.format("定时提交计数器失败,table:%s", tableName), e);
+        }
+    }
+
+    private byte[] rowBytes(String rowKey) {
+        return Bytes.toBytes(rowKeyStrategy == null ? rowKey : rowKeyStrategy.encode(rowKey));
+    }
+
+    private static class CounterKey {
+
+        private final String rowKey;
+
+        private final String family;
+
+        private final String qualifier;
+
+        /**
+         * 只用于提交时记录取出的增量,不参与equals,hashCode
+         */
+        private final long delta;
+
+        private CounterKey(String rowKey, String family, String qualifier) {
+            this(rowKey, family, qualifier, 0);
+        }
+
+        private CounterKey(String rowKey, String family, String qualifier, long delta) {
+            this.rowKey = rowKey;
+            this.family = family;
+            this.qualifier = qualifier;
+            this.delta = delta;
+        }
+
+        private CounterKey withDelta(long delta) {
+            return new CounterKey(rowKey, family, qualifier, delta);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof CounterKey))
+                return false;
+            CounterKey that = (CounterKey) o;
+            return rowKey.equals(that.rowKey) && family.equals(that.family) && qualifier.equals(that.qualifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(rowKey, family, qualifier);
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.annotation.Column;
+import com.wt.labrador.annotation.HTable;
+import com.wt.labrador.annotation.RowKey;
+import com.wt.labrador.exception.LabradorException;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 实体类映射元数据,每个类只解析一次注解
+ * 列族,列名预先转换为byte[]并在同一实体内复用同一个列族数组,字段读写使用MethodHandle,读写数据时不再做注解解析和字符串转换
+ *
+ * @author 一贫
+ * @date 2021/10/22
+ */
+final class EntityMeta<T> {
+
+    private static final ClassValue<EntityMeta<?>> CACHE = new ClassValue<EntityMeta<?>>() {
+        @Override
+        protected EntityMeta<?> computeValue(Class<?> type) {
+            return new EntityMeta<>(type);
+        }
+    };
+
+    private final Class<T> type;
+
+    private final TableName tableName;
+
+    private final MethodHandle constructor;
+
+    private final MethodHandle rowKeyGetter;
+
+    private final MethodHandle rowKeySetter;
+
+    private final ColumnMeta[] columns;
+
+    @SuppressWarnings("unchecked")
+    static <T> EntityMeta<T> of(Class<T> type) {
+        return (EntityMeta<T>) CACHE.get(type);
+    }
+
+    private EntityMeta(Class<T> type) {
+        this.type = type;
+        HTable table = type.getAnnotation(HTable.class);
+        if (table == null)
+            throw new LabradorException(String.format("实体类 %s 缺少@HTable注解", type.getName()));
+        this.tableName = TableName.valueOf(HBaseUtil.buildTableNameWithNameSpace(table.name(), table.namespace()));
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+            this.constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+            MethodHandle keyGetter = null;
+            MethodHandle keySetter = null;
+            Map<String, byte[]> familyBytes = new LinkedHashMap<>();
+            List<ColumnMeta> columnMetas = new ArrayList<>();
+            for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()))
+                        continue;
+                    if (field.isAnnotationPresent(RowKey.class)) {
+                        if (field.getType() != String.class)
+                            throw new LabradorException(String.format("实体类 %s 的rowKey字段 %s 必须为String", type.getName(), field.getName()));
+                        MethodHandles.Lookup fieldLookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+                        keyGetter = fieldLookup.unreflectGetter(field);
+                        keySetter = fieldLookup.unreflectSetter(field);
+                        continue;
+                    }
+                    Column column = field.getAnnotation(Column.class);
+                    if (column == null)
+                        continue;
+                    ValueType valueType = ValueType.of(field.getType());
+                    if (valueType == null)
+                        throw new LabradorException(String.format("实体类 %s 的字段 %s 类型 %s 不支持", type.getName(), field.getName(), field.getType().getName()));
+                    byte[] family = familyBytes.computeIfAbsent(column.family(), Bytes::toBytes);
+                    String qualifier = StringUtils.isNotBlank(column.qualifier()) ? column.qualifier() : field.getName();
+                    MethodHandles.Lookup fieldLookup = MethodHandles.privateLookupIn(c, MethodHandles.lookup());
+                    columnMetas.add(new ColumnMeta(family, Bytes.toBytes(qualifier), valueType,
+                            fieldLookup.unreflectGetter(field), fieldLookup.unreflectSetter(field)));
+                }
+            }
+            if (keyGetter == null)
+                throw new LabradorException(String.format("实体类 %s 缺少@RowKey字段", type.getName()));
+            this.rowKeyGetter = keyGetter;
+            this.rowKeySetter = keySetter;
+            this.columns = columnMetas.toArray(new ColumnMeta[0]);
+        } catch (LabradorException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new LabradorException(String.format("解析实体类 %s 失败:%s", type.getName(), e.getMessage()));
+        }
+    }
+
+    TableName getTableName() {
+        return tableName;
+    }
+
+    String rowKeyOf(T entity) {
+        try {
+            String rowKey = (String) rowKeyGetter.invoke(entity);
+            if (rowKey == null)
+                throw new LabradorException(String.format("实体类 %s 的rowKey为空", type.getName()));
+            return rowKey;
+        } catch (LabradorException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new LabradorException(String.format("读取实体类 %s 的rowKey失败", type.getName()));
+        }
+    }
+
+    /**
+     * 为空的字段不写入
+     *
+     * @param row 实际存储的rowKey
+     */
+    Put toPut(T entity, byte[] row) {
+        Put put = new Put(row);
+        try {
+            for (ColumnMeta column : columns) {
+                Object value = column.getter.invoke(entity);
+                if (value != null)
+                    put.addColumn(column.family, column.qualifier, column.type.encode(value));
+            }
+        } catch (Throwable e) {
+            throw new LabradorException(String.format("转换实体类 %s 失败", type.getName()));
+        }
+        return put;
+    }
+
+    /**
+     * @param row 实际存储的rowKey
+     */
+    Get toGet(byte[] row) {
+        Get get = new Get(row);
+        for (ColumnMeta column : columns) {
+            get.addColumn(column.family, column.qualifier);
+        }
+        return get;
+    }
+
+    void addColumns(Scan scan) {
+        for (ColumnMeta column : columns) {
+            scan.addColumn(column.family, column.qualifier);
+        }
+    }
+
+    /**
+     * 行中不存在的列保持字段默认值
+     *
+     * @param rowKey 原始rowKey
+     */
+    T toEntity(Result result, String rowKey) {
+        try {
+            @SuppressWarnings("unchecked")
+            T entity = (T) constructor.invoke();
+            rowKeySetter.invoke(entity, rowKey);
+            for (ColumnMeta column : columns) {
+                CellView cell = CellView.latest(result, column.family, column.qualifier);
+                if (cell != null)
+                    column.setter.invoke(entity, column.type.decode(cell));
+            }
+            return entity;
+        } catch (Throwable e) {
+            throw new LabradorException(String.format("转换实体类 %s 失败", type.getName()));
+        }
+    }
+
+    private static final class ColumnMeta {
+        private final byte[] family;
+        private final byte[] qualifier;
+        private final ValueType type;
+        private final MethodHandle getter;
+        private final MethodHandle setter;
+
+        private ColumnMeta(byte[] family, byte[] qualifier, ValueType type, MethodHandle getter, MethodHandle setter) {
+            this.family = family;
+            this.qualifier = qualifier;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+        }
+    }
+
+    private enum ValueType {
+        STRING {
+            @Override
+            Object decode(CellView cell) {
+                return cell.valueAsString();
+            }
+        },
+        LONG {
+            @Override
+            Object decode(CellView cell) {
+                return cell.valueAsLong();
+            }
+        },
+        INT {
+            @Override
+            Object decode(CellView cell) {
+                return cell.valueAsInt();
+            }
+        },
+        DOUBLE {
+            @Override
+            Object decode(CellView cell) {
+                return cell.valueAsDouble();
+            }
+        },
+        BYTES {
+            @Override
+            Object decode(CellView cell) {
+                return cell.valueAsBytes();
+            }
+        };
+
+        abstract Object decode(CellView cell);
+
+        byte[] encode(Object value) {
+            return ValueCodec.encode(value);
+        }
+
+        static ValueType of(Class<?> type) {
+            if (type == String.class)
+                return STRING;
+            if (type == long.class || type == Long.class)
+                return LONG;
+            if (type == int.class || type == Integer.class)
+                return INT;
+            if (type == double.class || type == Double.class)
+                return DOUBLE;
+            if (type == byte[].class)
+                return BYTES;
+            return null;
+        }
+    }
+}
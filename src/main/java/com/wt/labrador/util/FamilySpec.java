@@ -0,0 +1,119 @@
+package com.wt.labrador.util;
+
+import lombok.Getter;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptor;
+import org.apache.hadoop.hbase.client.ColumnFamilyDescriptorBuilder;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * 列族参数,未设置的参数使用HBase默认值
+ * 例: FamilySpec.of("info").compression(Compression.Algorithm.SNAPPY).dataBlockEncoding(DataBlockEncoding.FAST_DIFF)
+ *
+ * @author 一贫
+ * @date 2021/10/31
+ */
+@Getter
+public class FamilySpec {
+
+    private final String name;
+
+    /**
+     * 压缩算法,SNAPPY,LZ4,ZSTD需要RegionServer上有对应的native库,否则建表失败
+     */
+    private Compression.Algorithm compression;
+
+    /**
+     * 数据块编码,rowKey前缀重复较多时FAST_DIFF可显著减小存储;随机读多时ROW_INDEX_V1可加快块内查找
+     */
+    private DataBlockEncoding dataBlockEncoding;
+
+    /**
+     * 布隆过滤器,按rowKey读取用ROW,按rowKey+列读取用ROWCOL
+     */
+    private BloomType bloomFilter;
+
+    /**
+     * 数据块大小,字节,小于等于0时使用默认值64KB;随机读多时调小,扫描多时调大
+     */
+    private int blockSize;
+
+    /**
+     * 是否在BlockCache中优先保留,适用于小而热的列族
+     */
+    private Boolean inMemory;
+
+    /**
+     * 数据过期时间,秒,小于等于0时永不过期
+     */
+    private int ttl;
+
+    /**
+     * 最大版本数,小于等于0时使用默认值1
+     */
+    private int maxVersions;
+
+    private FamilySpec(String name) {
+        this.name = name;
+    }
+
+    public static FamilySpec of(String name) {
+        return new FamilySpec(name);
+    }
+
+    public FamilySpec compression(Compression.Algorithm compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public FamilySpec dataBlockEncoding(DataBlockEncoding dataBlockEncoding) {
+        this.dataBlockEncoding = dataBlockEncoding;
+        return this;
+    }
+
+    public FamilySpec bloomFilter(BloomType bloomFilter) {
+        this.bloomFilter = bloomFilter;
+        return this;
+    }
+
+    public FamilySpec blockSize(int blockSize) {
+        this.blockSize = blockSize;
+        return this;
+    }
+
+    public FamilySpec inMemory(boolean inMemory) {
+        this.inMemory = inMemory;
+        return this;
+    }
+
+    public FamilySpec ttl(int ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+
+    public FamilySpec maxVersions(int maxVersions) {
+        this.maxVersions = maxVersions;
+        return this;
+    }
+
+    ColumnFamilyDescriptor build() {
+        ColumnFamilyDescriptorBuilder builder = ColumnFamilyDescriptorBuilder.newBuilder(Bytes.toBytes(name));
+        if (compression != null)
+            builder.setCompressionType(compression);
+        if (dataBlockEncoding != null)
+            builder.setDataBlockEncoding(dataBlockEncoding);
+        if (bloomFilter != null)
+            builder.setBloomFilterType(bloomFilter);
+        if (blockSize > 0)
+            builder.setBlocksize(blockSize);
+        if (inMemory != null)
+            builder.setInMemory(inMemory);
+        if (ttl > 0)
+            builder.setTimeToLive(ttl);
+        if (maxVersions > 0)
+            builder.setMaxVersions(maxVersions);
+        return builder.build();
+    }
+}
@@ -0,0 +1,157 @@
+package com.wt.labrador.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Table;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Get请求合并
+ * 1. 相同key(表,rowKey,列族,列)的并发请求共享同一次RPC
+ * 2. 同一张表在window时间窗口内到达的不同key合并为一次multi-get,达到maxBatchSize时立即提交
+ * 第一个进入窗口的线程等待窗口结束后提交,提交在调用线程中执行,不需要额外的线程
+ *
+ * @author 一贫
+ * @date 2021/10/27
+ */
+@Slf4j
+class GetCoalescer {
+
+    private final HBaseHandleManager handleManager;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final Map<String, CompletableFuture<Result>> inFlight = new ConcurrentHashMap<>();
+
+    private final Map<TableName, Batch> openBatches = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder rpcs = new LongAdder();
+
+    /**
+     * @param handleManager 句柄管理
+     * @param windowMicros  合并窗口,微秒
+     * @param maxBatchSize  单次multi-get的最大行数
+     */
+    GetCoalescer(HBaseHandleManager handleManager, long windowMicros, int maxBatchSize) {
+        this.handleManager = handleManager;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxBatchSize = Math.max(maxBatchSize, 1);
+    }
+
+    /**
+     * @param tableName 表名
+     * @param get       Get请求
+     * @param key       相同key的请求结果完全相同,可共享
+     * @return Result
+     */
+    Result get(TableName tableName, Get get, String key) throws IOException {
+        requests.increment();
+        CompletableFuture<Result> future = new CompletableFuture<>();
+        CompletableFuture<Result> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing);
+        }
+        future.whenComplete((result, e) -> inFlight.remove(key, future));
+        enqueue(tableName, get, future);
+        return await(future);
+    }
+
+    long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * 与其他相同key请求共享结果的请求数
+     */
+    long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    /**
+     * 实际发出的multi-get次数
+     */
+    long getRpcCount() {
+        return rpcs.sum();
+    }
+
+    private void enqueue(TableName tableName, Get get, CompletableFuture<Result> future) {
+        Batch[] leaderOf = new Batch[1];
+        Batch[] fullBatch = new Batch[1];
+        openBatches.compute(tableName, (k, batch) -> {
+            if (batch == null) {
+                batch = new Batch();
+                leaderOf[0] = batch;
+            }
+            batch.gets.add(get);
+            batch.futures.add(future);
+            if (batch.gets.size() >= maxBatchSize) {
+                fullBatch[0] = batch;
+                return null;
+            }
+            return batch;
+        });
+        if (fullBatch[0] != null) {
+            flush(tableName, fullBatch[0]);
+            return;
+        }
+        if (leaderOf[0] != null) {
+            if (windowNanos > 0)
+                LockSupport.parkNanos(windowNanos);
+            // 只有从map中移除成功的线程负责提交,已因达到maxBatchSize被移除的批次由触发线程提交
+            if (openBatches.remove(tableName, leaderOf[0]))
+                flush(tableName, leaderOf[0]);
+        }
+    }
+
+    private void flush(TableName tableName, Batch batch) {
+        rpcs.increment();
+        try (Table table = handleManager.getTable(tableName)) {
+            Result[] results = table.get(batch.gets);
+            for (int i = 0; i < results.length; i++) {
+                batch.futures.get(i).complete(results[i]);
+            }
+        } catch (Throwable e) {
+            log.debug("合并查询失败,table:{},size:{}", tableName, batch.gets.size(), e);
+            batch.futures.forEach(f -> f.completeExceptionally(e));
+        }
+    }
+
+    private static Result await(CompletableFuture<Result> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("等待合并查询结果时被中断.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    private static class Batch {
+        private final List<Get> gets = new ArrayList<>();
+        private final List<CompletableFuture<Result>> futures = new ArrayList<>();
+    }
+}
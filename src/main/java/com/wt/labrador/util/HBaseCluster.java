@@ -0,0 +1,66 @@
+package com.wt.labrador.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.client.Connection;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 一个HBase集群的连接及句柄,由ClusterRouter按操作类型选择
+ *
+ * @author 一贫
+ * @date 2021/11/8
+ */
+@Slf4j
+public class HBaseCluster implements Closeable {
+
+    private final String name;
+
+    private final Configuration config;
+
+    private final Connection connection;
+
+    private final HBaseHandleManager handleManager;
+
+    private final ParallelScanner parallelScanner;
+
+    HBaseCluster(String name, Configuration config, Connection connection, HBaseHandleManager handleManager, ParallelScanner parallelScanner) {
+        this.name = name;
+        this.config = config;
+        this.connection = connection;
+        this.handleManager = handleManager;
+        this.parallelScanner = parallelScanner;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Configuration getConfiguration() {
+        return config;
+    }
+
+    public HBaseHandleManager getHandleManager() {
+        return handleManager;
+    }
+
+    Connection getConnection() {
+        return connection;
+    }
+
+    ParallelScanner getParallelScanner() {
+        return parallelScanner;
+    }
+
+    @Override
+    public void close() {
+        handleManager.close();
+        try {
+            connection.close();
+        } catch (IOException e) {
+            log.warn("关闭集群 {} 的连接失败.", name, e);
+        }
+    }
+}
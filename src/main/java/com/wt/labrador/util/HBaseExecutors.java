@@ -0,0 +1,143 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 执行并行扫描,批量分片等任务的线程池
+ * 虚拟线程需要JDK21及以上;项目仍按Java 11编译,虚拟线程相关API在运行时通过MethodHandle获取,低版本JDK上不可用
+ * 可能在虚拟线程中执行的代码使用ReentrantLock而不是synchronized,等锁或持锁发起RPC时不会占用平台线程
+ *
+ * @author 一贫
+ * @date 2021/11/10
+ */
+@Slf4j
+public final class HBaseExecutors {
+
+    public enum Mode {
+        /**
+         * 平台线程,调用方线程阻塞等待RPC,并行任务使用固定大小的线程池
+         */
+        PLATFORM,
+        /**
+         * 每个任务一个虚拟线程,阻塞等待RPC时只挂起虚拟线程,不占用平台线程
+         */
+        VIRTUAL
+    }
+
+    /**
+     * Thread.ofVirtual()
+     */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /**
+     * Thread.Builder.name(String prefix, long start)
+     */
+    private static final MethodHandle BUILDER_NAME;
+
+    /**
+     * Thread.Builder.factory()
+     */
+    private static final MethodHandle BUILDER_FACTORY;
+
+    /**
+     * Executors.newThreadPerTaskExecutor(ThreadFactory)
+     */
+    private static final MethodHandle THREAD_PER_TASK;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle builderName = null;
+        MethodHandle builderFactory = null;
+        MethodHandle threadPerTask = null;
+        // JDK19,20中虚拟线程是预览特性,未开启--enable-preview时调用会抛异常
+        if (Runtime.version().feature() >= 21) {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                Class<?> virtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+                ofVirtual = lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilder));
+                builderName = lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class, long.class));
+                builderFactory = lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class));
+                threadPerTask = lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                        MethodType.methodType(ExecutorService.class, ThreadFactory.class));
+            } catch (ReflectiveOperationException e) {
+                log.warn("获取虚拟线程API失败,虚拟线程模式不可用.", e);
+                ofVirtual = null;
+            }
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        THREAD_PER_TASK = threadPerTask;
+    }
+
+    private HBaseExecutors() {
+    }
+
+    /**
+     * 当前JDK是否支持虚拟线程
+     */
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * 每个任务一个虚拟线程的线程池,线程名为namePrefix加序号
+     *
+     * @param namePrefix 线程名前缀
+     * @return ExecutorService
+     * @throws LabradorException 当前JDK不支持虚拟线程时错误码为BAD_REQUEST
+     */
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (!isVirtualThreadSupported())
+            throw new LabradorException(ErrorCode.BAD_REQUEST,
+                    String.format("当前JDK %s 不支持虚拟线程,需要JDK21及以上", Runtime.version()));
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(), namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+            return (ExecutorService) THREAD_PER_TASK.invoke(factory);
+        } catch (Throwable e) {
+            throw new LabradorException(ErrorCode.UNKNOWN, String.format("创建虚拟线程池失败:%s", e.getMessage()));
+        }
+    }
+
+    /**
+     * 固定大小的守护线程池,线程名为namePrefix加序号
+     *
+     * @param namePrefix 线程名前缀
+     * @param threads    线程数
+     * @return ExecutorService
+     */
+    public static ExecutorService newFixedThreadPool(String namePrefix, int threads) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        return Executors.newFixedThreadPool(Math.max(threads, 1), r -> {
+            Thread thread = new Thread(r, namePrefix + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 按执行模式创建线程池,VIRTUAL模式忽略platformThreads
+     *
+     * @param mode            执行模式
+     * @param namePrefix      线程名前缀
+     * @param platformThreads PLATFORM模式的线程数
+     * @return ExecutorService
+     */
+    public static ExecutorService newExecutor(Mode mode, String namePrefix, int platformThreads) {
+        return mode == Mode.VIRTUAL
+                ? newVirtualThreadPerTaskExecutor(namePrefix)
+                : newFixedThreadPool(namePrefix, platformThreads);
+    }
+}
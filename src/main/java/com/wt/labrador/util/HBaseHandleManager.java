@@ -0,0 +1,199 @@
+package com.wt.labrador.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Table;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Table,Admin句柄管理
+ * Table是轻量级对象,每次调用从Connection获取,用完关闭;Admin创建成本较高,关闭后归还到池中复用
+ * 获取到的句柄均需要调用close(),建议使用try-with-resources
+ *
+ * @author 一贫
+ * @date 2021/10/9
+ */
+@Slf4j
+public class HBaseHandleManager implements Closeable {
+
+    private final Connection connection;
+
+    private final BlockingQueue<Admin> idleAdmins;
+
+    private final AtomicInteger liveTables = new AtomicInteger();
+
+    private final AtomicInteger liveAdmins = new AtomicInteger();
+
+    private final AtomicLong createdTables = new AtomicLong();
+
+    private final AtomicLong createdAdmins = new AtomicLong();
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * @param connection    共享的Connection
+     * @param adminPoolSize 空闲Admin的最大缓存数
+     */
+    public HBaseHandleManager(Connection connection, int adminPoolSize) {
+        this.connection = connection;
+        this.idleAdmins = new ArrayBlockingQueue<>(Math.max(adminPoolSize, 1));
+    }
+
+    /**
+     * 获取Table,使用完毕后需要close
+     *
+     * @param tableName 表名
+     * @return Table
+     */
+    public Table getTable(TableName tableName) throws IOException {
+        ensureOpen();
+        Table table = connection.getTable(tableName);
+        createdTables.incrementAndGet();
+        liveTables.incrementAndGet();
+        return proxy(Table.class, table, new HandleCloser(() -> {
+            liveTables.decrementAndGet();
+            table.close();
+        }));
+    }
+
+    /**
+     * 获取Admin,使用完毕后需要close,close时归还到池中
+     *
+     * @return Admin
+     */
+    public Admin getAdmin() throws IOException {
+        ensureOpen();
+        Admin admin = idleAdmins.poll();
+        if (admin == null) {
+            admin = connection.getAdmin();
+            createdAdmins.incrementAndGet();
+            liveAdmins.incrementAndGet();
+        }
+        Admin target = admin;
+        return proxy(Admin.class, target, new HandleCloser(() -> release(target)));
+    }
+
+    /**
+     * 当前未关闭的Table数
+     */
+    public int getLiveTableCount() {
+        return liveTables.get();
+    }
+
+    /**
+     * 当前未关闭的Admin数,包含池中空闲的Admin
+     */
+    public int getLiveAdminCount() {
+        return liveAdmins.get();
+    }
+
+    /**
+     * 池中空闲的Admin数
+     */
+    public int getIdleAdminCount() {
+        return idleAdmins.size();
+    }
+
+    /**
+     * 累计创建的Table数
+     */
+    public long getCreatedTableCount() {
+        return createdTables.get();
+    }
+
+    /**
+     * 累计创建的Admin数
+     */
+    public long getCreatedAdminCount() {
+        return createdAdmins.get();
+    }
+
+    /**
+     * 关闭池中空闲的Admin,之后不能再获取句柄;已借出的Admin在close时直接关闭
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+        Admin admin;
+        while ((admin = idleAdmins.poll()) != null) {
+            closeAdmin(admin);
+        }
+        if (liveTables.get() > 0 || liveAdmins.get() > 0)
+            log.warn("句柄管理器关闭时仍有未关闭的句柄,table:{},admin:{}", liveTables.get(), liveAdmins.get());
+    }
+
+    private void release(Admin admin) {
+        if (closed.get() || admin.isAborted() || !idleAdmins.offer(admin))
+            closeAdmin(admin);
+    }
+
+    private void closeAdmin(Admin admin) {
+        liveAdmins.decrementAndGet();
+        try {
+            admin.close();
+        } catch (Exception e) {
+            log.warn("关闭Admin失败.", e);
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed.get())
+            throw new IllegalStateException("HBaseHandleManager已关闭.");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, T target, HandleCloser closer) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (isClose(method)) {
+                closer.close();
+                return null;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class[]{type}, handler);
+    }
+
+    private static boolean isClose(Method method) {
+        return "close".equals(method.getName()) && method.getParameterCount() == 0;
+    }
+
+    @FunctionalInterface
+    private interface CloseAction {
+        void run() throws IOException;
+    }
+
+    /**
+     * 保证同一个句柄只释放一次
+     */
+    private static class HandleCloser {
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private final CloseAction action;
+
+        private HandleCloser(CloseAction action) {
+            this.action = action;
+        }
+
+        private void close() throws IOException {
+            if (released.compareAndSet(false, true))
+                action.run();
+        }
+    }
+}
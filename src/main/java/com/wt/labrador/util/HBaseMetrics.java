@@ -0,0 +1,234 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.ErrorCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.EqualsAndHashCode;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Result;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HBase操作指标,基于Micrometer,通过/actuator/prometheus或/actuator/metrics查看
+ * hbase.client.operations: 各操作耗时,tag: operation,namespace,table,outcome(success/error)
+ * hbase.client.rows,hbase.client.cells,hbase.client.bytes: 读写的行数,单元格数,字节数(rowKey+列族+列名+值),tag: namespace,table,direction(read/write)
+ * hbase.client.handles: 当前未关闭的句柄数,tag: type(table/admin/idle_admin)
+ * hbase.client.writer.buffered: 异步写入器缓冲区中尚未提交的字节数,tag: namespace,table
+ * hbase.client.circuit.state: 熔断状态,0关闭,1打开,2半开,tag: namespace,table
+ * hbase.client.bulkhead.active: 隔离舱中正在执行的调用数,tag: namespace,table
+ * hbase.client.rejected: 被熔断或隔离舱拒绝的调用数,tag: namespace,table,reason(CIRCUIT_OPEN/BULKHEAD_FULL)
+ * 耗时超过slowThreshold的调用记录WARN日志
+ * 返回Stream的扫描操作计时到Stream关闭为止,读取的行数等在消费Stream时统计
+ *
+ * @author 一贫
+ * @date 2021/10/28
+ */
+@Slf4j
+public class HBaseMetrics {
+
+    public static final String OPERATIONS = "hbase.client.operations";
+
+    public static final String ROWS = "hbase.client.rows";
+
+    public static final String CELLS = "hbase.client.cells";
+
+    public static final String BYTES = "hbase.client.bytes";
+
+    public static final String HANDLES = "hbase.client.handles";
+
+    public static final String WRITER_BUFFERED = "hbase.client.writer.buffered";
+
+    public static final String CIRCUIT_STATE = "hbase.client.circuit.state";
+
+    public static final String BULKHEAD_ACTIVE = "hbase.client.bulkhead.active";
+
+    public static final String REJECTED = "hbase.client.rejected";
+
+    private static final String READ = "read";
+
+    private static final String WRITE = "write";
+
+    private final MeterRegistry registry;
+
+    private final long slowThresholdNanos;
+
+    private final boolean histogram;
+
+    private final Map<String, Tags> tableTags = new ConcurrentHashMap<>();
+
+    private final Map<MeterKey, OperationMeters> operations = new ConcurrentHashMap<>();
+
+    private final Map<MeterKey, IoMeters> io = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry      指标注册中心
+     * @param slowThreshold 慢调用日志阈值,毫秒,小于等于0时不记录
+     * @param histogram     是否发布百分位直方图,用于在Prometheus中计算p50,p99
+     */
+    public HBaseMetrics(MeterRegistry registry, long slowThreshold, boolean histogram) {
+        this.registry = registry;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThreshold);
+        this.histogram = histogram;
+    }
+
+    /**
+     * 开始计时,操作结束后需要调用Sample.stop(),失败时先调用Sample.error()
+     *
+     * @param operation 操作名
+     * @param tableName 表名(带命名空间)
+     * @return Sample
+     */
+    Sample start(String operation, String tableName) {
+        return new Sample(operations.computeIfAbsent(new MeterKey(operation, tableName), OperationMeters::new), System.nanoTime());
+    }
+
+    void recordRead(String tableName, Result result) {
+        if (result == null || result.isEmpty())
+            return;
+        Cell[] cells = result.rawCells();
+        long bytes = 0;
+        for (Cell cell : cells) {
+            bytes += sizeOf(cell);
+        }
+        io(tableName, READ).record(1, cells.length, bytes);
+    }
+
+    void recordWrite(String tableName, Mutation mutation) {
+        long cells = 0;
+        long bytes = 0;
+        for (List<Cell> familyCells : mutation.getFamilyCellMap().values()) {
+            cells += familyCells.size();
+            for (Cell cell : familyCells) {
+                bytes += sizeOf(cell);
+            }
+        }
+        io(tableName, WRITE).record(1, cells, bytes);
+    }
+
+    void bindHandles(HBaseHandleManager handleManager) {
+        Gauge.builder(HANDLES, handleManager, HBaseHandleManager::getLiveTableCount)
+                .tag("type", "table").register(registry);
+        Gauge.builder(HANDLES, handleManager, HBaseHandleManager::getLiveAdminCount)
+                .tag("type", "admin").register(registry);
+        Gauge.builder(HANDLES, handleManager, HBaseHandleManager::getIdleAdminCount)
+                .tag("type", "idle_admin").register(registry);
+    }
+
+    void bindWriter(HBaseWriter writer) {
+        Gauge.builder(WRITER_BUFFERED, writer, HBaseWriter::getBufferedBytes)
+                .tags(tableTags(writer.getTableName().getNameAsString()))
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+    }
+
+    void bindGuard(TableGuard guard) {
+        Tags tags = tableTags(guard.getTableName());
+        Gauge.builder(CIRCUIT_STATE, guard, g -> g.getState().ordinal()).tags(tags).register(registry);
+        Gauge.builder(BULKHEAD_ACTIVE, guard, TableGuard::getActiveCalls).tags(tags).register(registry);
+        FunctionCounter.builder(REJECTED, guard, TableGuard::getCircuitRejectedCount)
+                .tags(tags).tag("reason", ErrorCode.CIRCUIT_OPEN).register(registry);
+        FunctionCounter.builder(REJECTED, guard, TableGuard::getBulkheadRejectedCount)
+                .tags(tags).tag("reason", ErrorCode.BULKHEAD_FULL).register(registry);
+    }
+
+    private IoMeters io(String tableName, String direction) {
+        return io.computeIfAbsent(new MeterKey(direction, tableName), IoMeters::new);
+    }
+
+    private Tags tableTags(String tableName) {
+        return tableTags.computeIfAbsent(tableName, name -> {
+            TableName tabName = TableName.valueOf(name);
+            return Tags.of("namespace", tabName.getNamespaceAsString(), "table", tabName.getQualifierAsString());
+        });
+    }
+
+    private static long sizeOf(Cell cell) {
+        return cell.getRowLength() + cell.getFamilyLength() + cell.getQualifierLength() + cell.getValueLength();
+    }
+
+    class Sample {
+        private final OperationMeters meters;
+        private final long startNanos;
+        private boolean failed;
+
+        private Sample(OperationMeters meters, long startNanos) {
+            this.meters = meters;
+            this.startNanos = startNanos;
+        }
+
+        void error() {
+            failed = true;
+        }
+
+        void stop() {
+            long elapsed = System.nanoTime() - startNanos;
+            (failed ? meters.error : meters.success).record(elapsed, TimeUnit.NANOSECONDS);
+            if (slowThresholdNanos > 0 && elapsed >= slowThresholdNanos)
+                log.warn("HBase慢调用,operation:{},table:{},outcome:{},耗时:{}ms", meters.key.name, meters.key.tableName,
+                        failed ? "error" : "success", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        }
+    }
+
+    private class OperationMeters {
+        private final MeterKey key;
+        private final Timer success;
+        private final Timer error;
+
+        private OperationMeters(MeterKey key) {
+            this.key = key;
+            this.success = timer(key, "success");
+            this.error = timer(key, "error");
+        }
+
+        private Timer timer(MeterKey key, String outcome) {
+            return Timer.builder(OPERATIONS)
+                    .tags(tableTags(key.tableName))
+                    .tag("operation", key.name)
+                    .tag("outcome", outcome)
+                    .publishPercentileHistogram(histogram)
+                    .register(registry);
+        }
+    }
+
+    private class IoMeters {
+        private final Counter rows;
+        private final Counter cells;
+        private final Counter bytes;
+
+        private IoMeters(MeterKey key) {
+            Tags tags = tableTags(key.tableName).and("direction", key.name);
+            this.rows = Counter.builder(ROWS).tags(tags).register(registry);
+            this.cells = Counter.builder(CELLS).tags(tags).register(registry);
+            this.bytes = Counter.builder(BYTES).tags(tags).baseUnit(BaseUnits.BYTES).register(registry);
+        }
+
+        private void record(long rowCount, long cellCount, long byteCount) {
+            rows.increment(rowCount);
+            cells.increment(cellCount);
+            bytes.increment(byteCount);
+        }
+    }
+
+    @EqualsAndHashCode
+    private static class MeterKey {
+        private final String name;
+        private final String tableName;
+
+        private MeterKey(String name, String tableName) {
+            this.name = name;
+            this.tableName = tableName;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.wt.labrador.util;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 扫描返回的一行数据
+ *
+ * @author 一贫
+ * @date 2021/10/15
+ */
+@Getter
+@ToString
+public class HBaseRow {
+
+    private final String rowKey;
+
+    /**
+     * Map<ColumnFamily, Map<Column qualifier, Value>>
+     */
+    private final Map<String, Map<String, String>> families;
+
+    public HBaseRow(String rowKey, Map<String, Map<String, String>> families) {
+        this.rowKey = rowKey;
+        this.families = families;
+    }
+
+    /**
+     * 获取某个列族数据
+     *
+     * @param columnFamily
+     * @return Map<column Qualifier, String>
+     */
+    public Map<String, String> getColumnFamily(String columnFamily) {
+        return families.getOrDefault(columnFamily, Collections.emptyMap());
+    }
+
+    /**
+     * 获取某个列的数据
+     *
+     * @param columnFamily
+     * @param column
+     * @return String
+     */
+    public String getColumn(String columnFamily, String column) {
+        return getColumnFamily(columnFamily).get(column);
+    }
+}
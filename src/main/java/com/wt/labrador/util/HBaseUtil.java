@@ -1,21 +1,39 @@
 package com.wt.labrador.util;
 
+import com.wt.labrador.exception.ErrorCode;
 import com.wt.labrador.exception.LabradorException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.*;
 import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.PageFilter;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
 import org.apache.hadoop.hbase.util.Bytes;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.stereotype.Component;
-import org.springframework.util.CollectionUtils;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * @author 一贫
@@ -27,16 +45,117 @@ import java.util.*;
 @Slf4j
 public class HBaseUtil {
 
+    /**
+     * 主集群名,即zookeeper配置的集群
+     */
+    public static final String PRIMARY_CLUSTER = "primary";
+
     private ZookeeperProperty zookeeper;
 
     private Configuration config;
 
+    private ClientProperty client = new ClientProperty();
+
+    /**
+     * 开启对冲读的表(带命名空间)
+     */
+    private Set<String> hedgedReadTables = Collections.emptySet();
+
     /**
      * Connection对象建议一个进程复用一个,是线程安全的
-     * Admin,Table非线程安全，每个线程重新获取
+     * Admin,Table非线程安全，每次调用通过handleManager获取,用完关闭
      */
     private Connection connection;
 
+    private TableMetaCache tableMetaCache;
+
+    private HBaseHandleManager handleManager;
+
+    private HandleProperty handle = new HandleProperty();
+
+    private TableCacheProperty tableCache = new TableCacheProperty();
+
+    private RowCacheProperty rowCache = new RowCacheProperty();
+
+    private RowCache hotRowCache;
+
+    private RowKeyProperty rowKeyStrategy = new RowKeyProperty();
+
+    private IndexProperty index = new IndexProperty();
+
+    private IndexManager indexManager;
+
+    /**
+     * K: 表名(带命名空间),V: rowKey策略
+     */
+    private final Map<String, RowKeyStrategy> rowKeyStrategies = new ConcurrentHashMap<>();
+
+    private CoalesceProperty coalesce = new CoalesceProperty();
+
+    private GetCoalescer getCoalescer;
+
+    private BatchProperty batch = new BatchProperty();
+
+    private WriterProperty writer = new WriterProperty();
+
+    private final Map<TableName, HBaseWriter> writers = new ConcurrentHashMap<>();
+
+    private CounterProperty counter = new CounterProperty();
+
+    private final Map<TableName, CounterBuffer> counterBuffers = new ConcurrentHashMap<>();
+
+    /**
+     * 创建写入器,计数器缓冲时使用
+     */
+    private final ReentrantLock registryLock = new ReentrantLock();
+
+    private ScheduledExecutorService counterScheduler;
+
+    private BulkLoadProperty bulkLoad = new BulkLoadProperty();
+
+    private ParallelScanProperty parallelScan = new ParallelScanProperty();
+
+    private ExecutionProperty execution = new ExecutionProperty();
+
+    private HBaseExecutors.Mode executionMode;
+
+    /**
+     * 并行扫描,分桶scanner打开使用的线程池
+     */
+    private ExecutorService scanExecutor;
+
+    /**
+     * 批量操作各批并发提交使用的线程池,仅虚拟线程模式下创建,为空时依次提交
+     */
+    private ExecutorService batchExecutor;
+
+    private ParallelScanner parallelScanner;
+
+    /**
+     * K: 集群名,主集群以外的集群,主集群使用zookeeper配置
+     */
+    private Map<String, ClusterProperty> clusters = new HashMap<>();
+
+    private RoutingProperty routing = new RoutingProperty();
+
+    private HBaseCluster primaryCluster;
+
+    private ClusterRouter clusterRouter;
+
+    private MetricsProperty metrics = new MetricsProperty();
+
+    private GuardProperty guard = new GuardProperty();
+
+    private TableGuards tableGuards;
+
+    private HBaseMetrics hBaseMetrics;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public HBaseUtil(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     /**
      * 创建命名空间
      *
@@ -44,20 +163,20 @@ public class HBaseUtil {
      * @return void
      */
     public void createNamespace(String namespace) {
-        try {
-            Admin admin = connection.getAdmin();
+        try (Admin admin = handleManager.getAdmin()) {
             NamespaceDescriptor namespaceDescriptor = NamespaceDescriptor.create(namespace).build();
             admin.createNamespace(namespaceDescriptor);
+            tableMetaCache.invalidateNamespace(namespace);
             log.info("创建namespace {} 成功.", namespace);
         } catch (Exception e) {
             String msg = String.format("创建namespace %s 失败.", namespace);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
         }
     }
 
     /**
-     * 创建表
+     * 创建表,列族使用默认参数,只有一个Region
      *
      * @param tableName      表名
      * @param columnFamilies 列族，至少一个
@@ -67,27 +186,67 @@ public class HBaseUtil {
     public void createTable(String tableName, String[] columnFamilies, String namespace) {
         if (columnFamilies == null || columnFamilies.length == 0)
             throw new RuntimeException("创建表至少要指定1个列族.");
+        TableSpec spec = TableSpec.create();
+        for (String columnFamily : columnFamilies) {
+            spec.family(columnFamily);
+        }
+        createTable(tableName, spec, namespace);
+    }
+
+    /**
+     * 按建表参数创建表,支持预分区及列族的压缩,编码,布隆过滤器等参数
+     *
+     * @param tableName 表名
+     * @param spec      建表参数，至少一个列族
+     * @param namespace 命名空间,为空时默认使用default
+     * @return void
+     */
+    public void createTable(String tableName, TableSpec spec, String namespace) {
+        if (spec == null || spec.getFamilies().isEmpty())
+            throw new RuntimeException("创建表至少要指定1个列族.");
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("createTable", tableName);
+        CallPermits permits = new CallPermits();
         TableName tabName = TableName.valueOf(tableName);
-        try {
-            Admin admin = connection.getAdmin();
+        try (Admin admin = handleManager.getAdmin()) {
+            guard(tableName, permits);
             if (admin.tableExists(tabName))
                 throw new LabradorException(String.format("表 %s 已经存在", tableName));
-            TableDescriptorBuilder builder = TableDescriptorBuilder.newBuilder(tabName);
-            for (String columnFamily : columnFamilies) {
-                builder.setColumnFamily(ColumnFamilyDescriptorBuilder.of(columnFamily));
-            }
-            admin.createTable(builder.build());
-            log.info("创建table {} 成功.", tableName);
+            TableDescriptor descriptor = spec.build(tabName);
+            byte[][] splitKeys = spec.splitKeyArray();
+            if (splitKeys.length == 0)
+                admin.createTable(descriptor);
+            else
+                admin.createTable(descriptor, splitKeys);
+            tableMetaCache.invalidate(tabName);
+            log.info("创建table {} 成功,Region数:{}.", tableName, splitKeys.length + 1);
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
-            String msg = String.format("创建表 %s 失败.", namespace);
+            sample.error();
+            permits.error(e);
+            String msg = String.format("创建表 %s 失败.", tableName);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
+    /**
+     * 按建表参数创建表,使用默认命名空间default
+     *
+     * @param tableName 表名
+     * @param spec      建表参数，至少一个列族
+     * @return void
+     */
+    public void createTable(String tableName, TableSpec spec) {
+        createTable(tableName, spec, null);
+    }
+
     /**
      * 创建表,使用默认命名空间default
      *
@@ -112,20 +271,35 @@ public class HBaseUtil {
      */
     public void put(String tableName, String rowKey, String columnFamily, String column, String data, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("put", tableName);
+        CallPermits permits = new CallPermits();
         try {
+            guard(tableName, permits);
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Put put = new Put(Bytes.toBytes(rowKey));
-            put.addColumn(Bytes.toBytes(columnFamily), Bytes.toBytes(column), Bytes.toBytes(data));
-            table.put(put);
+            checkTableExists(tabName);
+            try (Table table = handleManager.getTable(tabName)) {
+                Put put = new Put(rowBytes(tableName, rowKey));
+                put.addColumn(Bytes.toBytes(columnFamily), Bytes.toBytes(column), Bytes.toBytes(data));
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, put);
+                table.put(put);
+                hBaseMetrics.recordWrite(tableName, put);
+                afterWrite(indexUpdate);
+            }
+            hotRowCache.invalidate(tableName, rowKey);
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("保存数据失败,table:%s,rowKey:%s,columnFamily:%s", tableName, rowKey, columnFamily);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -155,23 +329,38 @@ public class HBaseUtil {
      */
     public void put(String tableName, String rowKey, String columnFamily, Map<String, String> keyValues, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("put", tableName);
+        CallPermits permits = new CallPermits();
         try {
+            guard(tableName, permits);
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Put put = new Put(Bytes.toBytes(rowKey));
-            byte[] rowKeyBytes = Bytes.toBytes(columnFamily);
-            keyValues.forEach((k, v) -> {
-                put.addColumn(rowKeyBytes, Bytes.toBytes(k), Bytes.toBytes(v));
-            });
-            table.put(put);
+            checkTableExists(tabName);
+            try (Table table = handleManager.getTable(tabName)) {
+                Put put = new Put(rowBytes(tableName, rowKey));
+                byte[] rowKeyBytes = Bytes.toBytes(columnFamily);
+                keyValues.forEach((k, v) -> {
+                    put.addColumn(rowKeyBytes, Bytes.toBytes(k), Bytes.toBytes(v));
+                });
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, put);
+                table.put(put);
+                hBaseMetrics.recordWrite(tableName, put);
+                afterWrite(indexUpdate);
+            }
+            hotRowCache.invalidate(tableName, rowKey);
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("保存数据失败,table:%s,rowKey:%s,columnFamily:%s", tableName, rowKey, columnFamily);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -188,6 +377,64 @@ public class HBaseUtil {
         put(tableName, rowKey, columnFamily, keyValues, null);
     }
 
+    /**
+     * 保存多类型数据,值按ValueCodec编码,支持String,Long,Integer,Double,byte[],ByteBuffer
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param keyValues,   K: column qualifier,V: data
+     * @param namespace
+     * @return void
+     */
+    public void putValues(String tableName, String rowKey, String columnFamily, Map<String, ?> keyValues, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("putValues", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(tabName);
+            try (Table table = handleManager.getTable(tabName)) {
+                Put put = new Put(rowBytes(tableName, rowKey));
+                byte[] cfBytes = Bytes.toBytes(columnFamily);
+                keyValues.forEach((k, v) -> put.addColumn(cfBytes, Bytes.toBytes(k), ValueCodec.encode(v)));
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, put);
+                table.put(put);
+                hBaseMetrics.recordWrite(tableName, put);
+                afterWrite(indexUpdate);
+            }
+            hotRowCache.invalidate(tableName, rowKey);
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("保存数据失败,table:%s,rowKey:%s,columnFamily:%s", tableName, rowKey, columnFamily);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 保存多类型数据,值按ValueCodec编码
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param keyValues,   K: column qualifier,V: data
+     * @return void
+     */
+    public void putValues(String tableName, String rowKey, String columnFamily, Map<String, ?> keyValues) {
+        putValues(tableName, rowKey, columnFamily, keyValues, null);
+    }
+
     /**
      * 获取某个列的数据
      *
@@ -200,21 +447,39 @@ public class HBaseUtil {
      */
     public String getColumn(String tableName, String rowKey, String columnFamily, String column, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("getColumn", tableName);
+        CallPermits permits = new CallPermits();
         try {
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Get get = new Get(Bytes.toBytes(rowKey));
+            RowCache.Slot slot = hotRowCache.slot(tableName, rowKey, columnFamily, "c:" + columnFamily + ":" + column);
+            if (slot != null) {
+                String cached = slot.get();
+                if (cached != null)
+                    return cached;
+            }
+            HBaseCluster cluster = route(ClusterRouter.Operation.READ, tableName, permits);
+            checkTableExists(cluster, tabName);
+            Get get = new Get(rowBytes(tableName, rowKey));
             get.addColumn(Bytes.toBytes(columnFamily), Bytes.toBytes(column));
-            Result result = table.get(get);
-            return Bytes.toString(result.value());
+            Result result = get(cluster, tabName, get, tableName + "/" + rowKey + "/c:" + columnFamily + ":" + column);
+            String value = Bytes.toString(result.value());
+            if (slot != null)
+                slot.put(value, RowCache.weigh(value));
+            return value;
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("获取数据失败,table:%s,rowKey:%s,columnFamily:%s,column:%s", tableName, rowKey, columnFamily, column);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -242,30 +507,41 @@ public class HBaseUtil {
      */
     public Map<String, String> getColumnFamily(String tableName, String rowKey, String columnFamily, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("getColumnFamily", tableName);
+        CallPermits permits = new CallPermits();
         try {
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Get get = new Get(Bytes.toBytes(rowKey));
+            RowCache.Slot slot = hotRowCache.slot(tableName, rowKey, columnFamily, "f:" + columnFamily);
+            if (slot != null) {
+                Map<String, String> cached = slot.get();
+                if (cached != null)
+                    return cached;
+            }
+            HBaseCluster cluster = route(ClusterRouter.Operation.READ, tableName, permits);
+            checkTableExists(cluster, tabName);
+            Get get = new Get(rowBytes(tableName, rowKey));
             get.addFamily(Bytes.toBytes(columnFamily));
-            Result result = table.get(get);
-            List<Cell> cells = result.listCells();
-            Map<String, String> kv = new HashMap<>();
-            if (CollectionUtils.isEmpty(cells))
+            Result result = get(cluster, tabName, get, tableName + "/" + rowKey + "/f:" + columnFamily);
+            Map<String, String> kv = familyToMap(result);
+            if (slot == null)
                 return kv;
-            for (Cell cell : cells) {
-                String column = new String(CellUtil.cloneQualifier(cell));
-                String value = new String(CellUtil.cloneValue(cell), "UTF-8");
-                kv.put(column, value);
-            }
+            kv = Collections.unmodifiableMap(kv);
+            slot.put(kv, RowCache.weigh(kv));
             return kv;
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("获取数据失败,table:%s,rowKey:%s,columnFamily:%s", tableName, rowKey, columnFamily);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -291,20 +567,41 @@ public class HBaseUtil {
      */
     public Map<String, Map<String, String>> getRow(String tableName, String rowKey, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("getRow", tableName);
+        CallPermits permits = new CallPermits();
         try {
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Get get = new Get(Bytes.toBytes(rowKey));
-            Result result = table.get(get);
-            return resultToMap(result);
+            RowCache.Slot slot = hotRowCache.slot(tableName, rowKey, null, "r");
+            if (slot != null) {
+                Map<String, Map<String, String>> cached = slot.get();
+                if (cached != null)
+                    return cached;
+            }
+            HBaseCluster cluster = route(ClusterRouter.Operation.READ, tableName, permits);
+            checkTableExists(cluster, tabName);
+            Get get = new Get(rowBytes(tableName, rowKey));
+            Result result = get(cluster, tabName, get, tableName + "/" + rowKey + "/r");
+            Map<String, Map<String, String>> row = resultToMap(result);
+            if (slot == null)
+                return row;
+            row.replaceAll((cf, kv) -> Collections.unmodifiableMap(kv));
+            row = Collections.unmodifiableMap(row);
+            slot.put(row, RowCache.weigh(row));
+            return row;
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("获取数据失败,table:%s,rowKey:%s", tableName, rowKey);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -319,6 +616,65 @@ public class HBaseUtil {
         return getRow(tableName, rowKey, null);
     }
 
+    /**
+     * 获取某行数据并通过mapper直接转换为业务对象,行不存在时返回null
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamilies 为空时获取所有列族
+     * @param mapper         行转换,可配合CellView读取各列
+     * @param namespace
+     * @return T
+     */
+    public <T> T getRowAs(String tableName, String rowKey, String[] columnFamilies, RowMapper<T> mapper, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("getRowAs", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.READ, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            try (Table table = cluster.getHandleManager().getTable(tabName)) {
+                Get get = withConsistency(tableName, new Get(rowBytes(tableName, rowKey)));
+                if (columnFamilies != null && columnFamilies.length > 0) {
+                    for (String columnFamily : columnFamilies) {
+                        get.addFamily(Bytes.toBytes(columnFamily));
+                    }
+                }
+                Result result = table.get(get);
+                hBaseMetrics.recordRead(tableName, result);
+                return result.isEmpty() ? null : mapper.mapRow(result);
+            }
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("获取数据失败,table:%s,rowKey:%s", tableName, rowKey);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 获取某行数据并通过mapper直接转换为业务对象,行不存在时返回null
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamilies 为空时获取所有列族
+     * @param mapper         行转换
+     * @return T
+     */
+    public <T> T getRowAs(String tableName, String rowKey, String[] columnFamilies, RowMapper<T> mapper) {
+        return getRowAs(tableName, rowKey, columnFamilies, mapper, null);
+    }
+
     /**
      * 删除某行数据
      *
@@ -329,19 +685,34 @@ public class HBaseUtil {
      */
     public void deleteRow(String tableName, String rowKey, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("deleteRow", tableName);
+        CallPermits permits = new CallPermits();
         try {
+            guard(tableName, permits);
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Delete delete = new Delete(Bytes.toBytes(rowKey));
-            table.delete(delete);
+            checkTableExists(tabName);
+            try (Table table = handleManager.getTable(tabName)) {
+                Delete delete = new Delete(rowBytes(tableName, rowKey));
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, delete);
+                table.delete(delete);
+                hBaseMetrics.recordWrite(tableName, delete);
+                afterWrite(indexUpdate);
+            }
+            hotRowCache.invalidate(tableName, rowKey);
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("删除数据失败,table:%s,rowKey:%s", tableName, rowKey);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -368,22 +739,37 @@ public class HBaseUtil {
      */
     public void deleteColumnFamily(String tableName, String rowKey, String[] columnFamilies, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("deleteColumnFamily", tableName);
+        CallPermits permits = new CallPermits();
         try {
+            guard(tableName, permits);
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Delete delete = new Delete(Bytes.toBytes(rowKey));
-            for (String columnFamily : columnFamilies) {
-                delete.addFamily(Bytes.toBytes(columnFamily));
+            checkTableExists(tabName);
+            try (Table table = handleManager.getTable(tabName)) {
+                Delete delete = new Delete(rowBytes(tableName, rowKey));
+                for (String columnFamily : columnFamilies) {
+                    delete.addFamily(Bytes.toBytes(columnFamily));
+                }
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, delete);
+                table.delete(delete);
+                hBaseMetrics.recordWrite(tableName, delete);
+                afterWrite(indexUpdate);
             }
-            table.delete(delete);
+            hotRowCache.invalidate(tableName, rowKey);
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("删除数据失败,table:%s,rowKey:%s", tableName, rowKey);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -411,23 +797,38 @@ public class HBaseUtil {
      */
     public void deleteColumn(String tableName, String rowKey, String columnFamily, String[] columns, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("deleteColumn", tableName);
+        CallPermits permits = new CallPermits();
         try {
+            guard(tableName, permits);
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Delete delete = new Delete(Bytes.toBytes(rowKey));
-            byte[] cfBytes = Bytes.toBytes(columnFamily);
-            for (String column : columns) {
-                delete.addColumn(cfBytes, Bytes.toBytes(column));
+            checkTableExists(tabName);
+            try (Table table = handleManager.getTable(tabName)) {
+                Delete delete = new Delete(rowBytes(tableName, rowKey));
+                byte[] cfBytes = Bytes.toBytes(columnFamily);
+                for (String column : columns) {
+                    delete.addColumn(cfBytes, Bytes.toBytes(column));
+                }
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, delete);
+                table.delete(delete);
+                hBaseMetrics.recordWrite(tableName, delete);
+                afterWrite(indexUpdate);
             }
-            table.delete(delete);
+            hotRowCache.invalidate(tableName, rowKey);
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
             String msg = String.format("删除数据失败,table:%s,rowKey:%s,columnFamily:%s", tableName, rowKey, columnFamily);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
@@ -445,152 +846,2376 @@ public class HBaseUtil {
     }
 
     /**
-     * 扫描数据
+     * 批量保存数据,按batch.chunkSize分批提交,单个rowKey失败不影响其他rowKey
      *
      * @param tableName
-     * @param startRow
-     * @param stopRow
-     * @param columnFamilies
+     * @param rows      K: rowKey,V: Map<ColumnFamily, Map<Column qualifier, Value>>
      * @param namespace
-     * @return Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>
+     * @return Map<rowKey, BatchResult>
      */
-    public Map<String, Map<String, Map<String, String>>> scan(String tableName, String startRow, String stopRow, String[] columnFamilies, String namespace) {
+    public Map<String, BatchResult<Void>> putRows(String tableName, Map<String, Map<String, Map<String, String>>> rows, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("putRows", tableName);
+        CallPermits permits = new CallPermits();
         try {
+            guard(tableName, permits);
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Scan scan = new Scan();
-            if (StringUtils.isNotBlank(startRow))
-                scan.withStartRow(Bytes.toBytes(startRow));
-            if (StringUtils.isNotBlank(stopRow))
-                scan.withStopRow(Bytes.toBytes(stopRow));
-            if (columnFamilies != null && columnFamilies.length > 0) {
-                for (String columnFamily : columnFamilies) {
-                    scan.addFamily(Bytes.toBytes(columnFamily));
+            checkTableExists(tabName);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            Map<String, BatchResult<Void>> results = new LinkedHashMap<>();
+            List<String> rowKeys = new ArrayList<>(rows.size());
+            List<Put> puts = new ArrayList<>(rows.size());
+            rows.forEach((rowKey, families) -> {
+                Put put = new Put(rowBytes(strategy, rowKey));
+                if (families != null) {
+                    families.forEach((columnFamily, keyValues) -> {
+                        byte[] cfBytes = Bytes.toBytes(columnFamily);
+                        keyValues.forEach((k, v) -> put.addColumn(cfBytes, Bytes.toBytes(k), Bytes.toBytes(v)));
+                    });
                 }
-            }
-            ResultScanner rs = table.getScanner(scan);
-            Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
-            for (Result result : rs) {
-                Map<String, Map<String, String>> map = resultToMap(result);
-                rows.put(Bytes.toString(result.getRow()), map);
-            }
-            return rows;
+                if (put.isEmpty()) {
+                    results.put(rowKey, BatchResult.failure("没有需要保存的列"));
+                    return;
+                }
+                rowKeys.add(rowKey);
+                puts.add(put);
+            });
+            IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKeys, puts);
+            results.putAll(batchByChunk(handleManager, tabName, rowKeys, puts, result -> null));
+            afterWrite(indexUpdate, results);
+            invalidateRows(tableName, rowKeys);
+            return results;
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
-            String msg = String.format("扫描数据失败,table:%s", tableName);
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("批量保存数据失败,table:%s", tableName);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
     /**
-     * 扫描数据
+     * 批量保存数据,按batch.chunkSize分批提交,单个rowKey失败不影响其他rowKey
      *
      * @param tableName
-     * @param startRow
-     * @param stopRow
-     * @param columnFamilies
-     * @return Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>
+     * @param rows      K: rowKey,V: Map<ColumnFamily, Map<Column qualifier, Value>>
+     * @return Map<rowKey, BatchResult>
      */
-    public Map<String, Map<String, Map<String, String>>> scan(String tableName, String startRow, String stopRow, String[] columnFamilies) {
-        return scan(tableName, startRow, stopRow, columnFamilies, null);
+    public Map<String, BatchResult<Void>> putRows(String tableName, Map<String, Map<String, Map<String, String>>> rows) {
+        return putRows(tableName, rows, null);
     }
 
     /**
-     * 扫描某个列族数据
+     * 批量获取多行数据,按batch.chunkSize分批提交,单个rowKey失败不影响其他rowKey
      *
      * @param tableName
-     * @param startRow
-     * @param stopRow
-     * @param columnFamily
-     * @param columns
+     * @param rowKeys
+     * @param columnFamilies 为空时获取所有列族
      * @param namespace
-     * @return Map<ColumnFamily, Map<Column qualifier, Value>>
+     * @return Map<rowKey, BatchResult<Map<ColumnFamily, Map<Column qualifier, Value>>>>
      */
-    public Map<String, Map<String, Map<String, String>>> scanColumnFamily(String tableName, String startRow, String stopRow, String columnFamily, String[] columns, String namespace) {
+    public Map<String, BatchResult<Map<String, Map<String, String>>>> getRows(String tableName, List<String> rowKeys, String[] columnFamilies, String namespace) {
         tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("getRows", tableName);
+        CallPermits permits = new CallPermits();
         try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.READ, tableName, permits);
             TableName tabName = TableName.valueOf(tableName);
-            if (!connection.getAdmin().tableExists(tabName))
-                throw new LabradorException(String.format("表 %s 不存在", tableName));
-            Table table = connection.getTable(tabName);
-            Scan scan = new Scan();
-            if (StringUtils.isNotBlank(startRow))
-                scan.withStartRow(Bytes.toBytes(startRow));
-            if (StringUtils.isNotBlank(stopRow))
-                scan.withStopRow(Bytes.toBytes(stopRow));
-            if (StringUtils.isNotBlank(columnFamily) && columns != null && columns.length > 0) {
-                byte[] colFamily = Bytes.toBytes(columnFamily);
-                for (String column : columns) {
-                    scan.addColumn(colFamily, Bytes.toBytes(column));
+            checkTableExists(cluster, tabName);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            List<Get> gets = new ArrayList<>(rowKeys.size());
+            for (String rowKey : rowKeys) {
+                Get get = withConsistency(tableName, new Get(rowBytes(strategy, rowKey)));
+                if (columnFamilies != null && columnFamilies.length > 0) {
+                    for (String columnFamily : columnFamilies) {
+                        get.addFamily(Bytes.toBytes(columnFamily));
+                    }
                 }
+                gets.add(get);
             }
-            ResultScanner rs = table.getScanner(scan);
-            Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
-            for (Result result : rs) {
-                Map<String, Map<String, String>> map = resultToMap(result);
-                rows.put(Bytes.toString(result.getRow()), map);
+            return batchByChunk(cluster.getHandleManager(), tabName, rowKeys, gets, HBaseUtil::resultToMap);
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("批量获取数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 批量获取多行数据,按batch.chunkSize分批提交,单个rowKey失败不影响其他rowKey
+     *
+     * @param tableName
+     * @param rowKeys
+     * @param columnFamilies 为空时获取所有列族
+     * @return Map<rowKey, BatchResult<Map<ColumnFamily, Map<Column qualifier, Value>>>>
+     */
+    public Map<String, BatchResult<Map<String, Map<String, String>>>> getRows(String tableName, List<String> rowKeys, String[] columnFamilies) {
+        return getRows(tableName, rowKeys, columnFamilies, null);
+    }
+
+    /**
+     * 批量删除多行数据,按batch.chunkSize分批提交,单个rowKey失败不影响其他rowKey
+     *
+     * @param tableName
+     * @param rowKeys
+     * @param namespace
+     * @return Map<rowKey, BatchResult>
+     */
+    public Map<String, BatchResult<Void>> deleteRows(String tableName, List<String> rowKeys, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("deleteRows", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(tabName);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            List<Delete> deletes = new ArrayList<>(rowKeys.size());
+            for (String rowKey : rowKeys) {
+                deletes.add(new Delete(rowBytes(strategy, rowKey)));
+            }
+            try {
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKeys, deletes);
+                Map<String, BatchResult<Void>> results = batchByChunk(handleManager, tabName, rowKeys, deletes, result -> null);
+                afterWrite(indexUpdate, results);
+                return results;
+            } finally {
+                invalidateRows(tableName, rowKeys);
             }
-            return rows;
         } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
             throw e;
         } catch (Exception e) {
-            String msg = String.format("扫描数据失败,table:%s", tableName);
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("批量删除数据失败,table:%s", tableName);
             log.error(msg, e);
-            throw new LabradorException(msg);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
         }
     }
 
     /**
-     * 扫描某个列族数据
+     * 批量删除多行数据,按batch.chunkSize分批提交,单个rowKey失败不影响其他rowKey
      *
      * @param tableName
-     * @param startRow
-     * @param stopRow
-     * @param columnFamily
-     * @param columns
-     * @return Map<ColumnFamily, Map<Column qualifier, Value>>
+     * @param rowKeys
+     * @return Map<rowKey, BatchResult>
      */
-    public Map<String, Map<String, Map<String, String>>> scanColumnFamily(String tableName, String startRow, String stopRow, String columnFamily, String[] columns) {
-        return scanColumnFamily(tableName, startRow, stopRow, columnFamily, columns, null);
+    public Map<String, BatchResult<Void>> deleteRows(String tableName, List<String> rowKeys) {
+        return deleteRows(tableName, rowKeys, null);
     }
 
-    private Map<String, Map<String, String>> resultToMap(Result result) throws UnsupportedEncodingException {
-        List<Cell> cells = result.listCells();
-        Map<String, Map<String, String>> kv = new HashMap<>();
-        if (CollectionUtils.isEmpty(cells))
-            return kv;
-        for (Cell cell : cells) {
-            String columnFamily = new String(CellUtil.cloneFamily(cell));
-            String column = new String(CellUtil.cloneQualifier(cell));
-            String value = new String(CellUtil.cloneValue(cell), "UTF-8");
-            kv.putIfAbsent(columnFamily, new HashMap<>());
-            kv.get(columnFamily).put(column, value);
+    /**
+     * 为某张表设置rowKey策略,之后该表的读写及扫描都会按策略转换rowKey
+     * 策略决定了数据的实际存储位置,表中已有数据后不能再修改
+     *
+     * @param tableName
+     * @param namespace
+     * @param strategy  为空时取消策略
+     * @return void
+     */
+    public void registerRowKeyStrategy(String tableName, String namespace, RowKeyStrategy strategy) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        if (strategy == null)
+            rowKeyStrategies.remove(tableName);
+        else
+            rowKeyStrategies.put(tableName, strategy);
+    }
+
+    /**
+     * 获取某张表的异步写入器,同一张表共享一个写入器,应用关闭时统一flush并关闭
+     *
+     * @param tableName
+     * @param namespace
+     * @param failureListener 写入失败回调,仅在首次创建该表的写入器时生效,为空时只记录日志
+     * @return HBaseWriter
+     */
+    public HBaseWriter getWriter(String tableName, String namespace, HBaseWriter.FailureListener failureListener) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        try {
+            TableName tabName = TableName.valueOf(tableName);
+            HBaseWriter existing = writers.get(tabName);
+            if (existing != null)
+                return existing;
+            checkTableExists(tabName);
+            registryLock.lock();
+            try {
+                HBaseWriter hBaseWriter = writers.get(tabName);
+                if (hBaseWriter == null) {
+                    hBaseWriter = new HBaseWriter(connection, tabName, writer.writeBufferSize, writer.flushInterval,
+                            writer.maxInFlightBytes, failureListener, rowKeyStrategies.get(tableName), hotRowCache);
+                    writers.put(tabName, hBaseWriter);
+                    hBaseMetrics.bindWriter(hBaseWriter);
+                }
+                return hBaseWriter;
+            } finally {
+                registryLock.unlock();
+            }
+        } catch (LabradorException e) {
+            throw e;
+        } catch (Exception e) {
+            String msg = String.format("创建写入器失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
         }
-        return kv;
     }
 
-    private String buildTableNameWithNameSpace(String tableName, String namespace) {
-        if (StringUtils.isNotBlank(namespace))
-            tableName = namespace + ":" + tableName;
-        return tableName;
+    /**
+     * 获取某张表的异步写入器
+     *
+     * @param tableName
+     * @param namespace
+     * @return HBaseWriter
+     */
+    public HBaseWriter getWriter(String tableName, String namespace) {
+        return getWriter(tableName, namespace, null);
     }
 
-    @PostConstruct
-    private void init() throws IOException {
-        config = HBaseConfiguration.create();
-        config.set("hbase.zookeeper.quorum", zookeeper.quorum);
-        HBaseAdmin.available(config);
-        connection = ConnectionFactory.createConnection(config);
+    /**
+     * 获取某张表的异步写入器,使用默认命名空间default
+     *
+     * @param tableName
+     * @return HBaseWriter
+     */
+    public HBaseWriter getWriter(String tableName) {
+        return getWriter(tableName, null, null);
     }
 
-    @Setter
-    private static class ZookeeperProperty {
-        private String quorum;
+    /**
+     * 刷新所有异步写入器的缓冲区
+     *
+     * @return void
+     */
+    public void flushWriters() {
+        writers.values().forEach(HBaseWriter::flush);
+    }
+
+    /**
+     * 原子累加某个计数器,一次RPC完成读取和写入,计数器不存在时从0开始
+     * 计数器按8字节long存储,需要通过increment或CellView.valueAsLong读取,不能用getColumn读取
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param column
+     * @param delta        增量,可以为负数
+     * @param namespace
+     * @return long 累加后的值
+     */
+    public long increment(String tableName, String rowKey, String columnFamily, String column, long delta, String namespace) {
+        return increment(tableName, rowKey, columnFamily, Collections.singletonMap(column, delta), namespace).get(column);
+    }
+
+    /**
+     * 原子累加某个计数器,使用默认命名空间default
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param column
+     * @param delta        增量,可以为负数
+     * @return long 累加后的值
+     */
+    public long increment(String tableName, String rowKey, String columnFamily, String column, long delta) {
+        return increment(tableName, rowKey, columnFamily, column, delta, null);
+    }
+
+    /**
+     * 原子累加同一行同一列族的多个计数器,一次RPC完成
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param deltas       K: column qualifier,V: 增量
+     * @param namespace
+     * @return Map<Column qualifier, 累加后的值>
+     */
+    public Map<String, Long> increment(String tableName, String rowKey, String columnFamily, Map<String, Long> deltas, String namespace) {
+        if (deltas == null || deltas.isEmpty())
+            throw new LabradorException("累加至少要指定1个列.");
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("increment", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(tabName);
+            for (String column : deltas.keySet()) {
+                indexManager.checkNotIndexed(tableName, columnFamily, column);
+            }
+            byte[] cfBytes = Bytes.toBytes(columnFamily);
+            Increment increment = new Increment(rowBytes(tableName, rowKey));
+            deltas.forEach((k, v) -> increment.addColumn(cfBytes, Bytes.toBytes(k), v));
+            Result result;
+            try (Table table = handleManager.getTable(tabName)) {
+                result = table.increment(increment);
+                hBaseMetrics.recordWrite(tableName, increment);
+            }
+            hotRowCache.invalidate(tableName, rowKey);
+            Map<String, Long> values = new LinkedHashMap<>();
+            for (String column : deltas.keySet()) {
+                byte[] value = result.getValue(cfBytes, Bytes.toBytes(column));
+                values.put(column, value == null ? null : Bytes.toLong(value));
+            }
+            return values;
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("累加计数器失败,table:%s,rowKey:%s,columnFamily:%s", tableName, rowKey, columnFamily);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 原子累加同一行同一列族的多个计数器,使用默认命名空间default
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily
+     * @param deltas       K: column qualifier,V: 增量
+     * @return Map<Column qualifier, 累加后的值>
+     */
+    public Map<String, Long> increment(String tableName, String rowKey, String columnFamily, Map<String, Long> deltas) {
+        return increment(tableName, rowKey, columnFamily, deltas, null);
+    }
+
+    /**
+     * 获取某张表的计数器缓冲,同一张表共享一个,应用关闭时统一提交并关闭
+     * 增量在客户端合并后定时提交,不返回累加后的值
+     *
+     * @param tableName
+     * @param namespace
+     * @return CounterBuffer
+     */
+    public CounterBuffer getCounterBuffer(String tableName, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        try {
+            TableName tabName = TableName.valueOf(tableName);
+            CounterBuffer existing = counterBuffers.get(tabName);
+            if (existing != null)
+                return existing;
+            checkTableExists(tabName);
+            registryLock.lock();
+            try {
+                CounterBuffer buffer = counterBuffers.get(tabName);
+                if (buffer == null) {
+                    buffer = new CounterBuffer(handleManager, tabName, counterScheduler, counter.flushInterval,
+                            counter.maxPendingCounters, rowKeyStrategies.get(tableName), indexManager, hotRowCache);
+                    counterBuffers.put(tabName, buffer);
+                }
+                return buffer;
+            } finally {
+                registryLock.unlock();
+            }
+        } catch (LabradorException e) {
+            throw e;
+        } catch (Exception e) {
+            String msg = String.format("创建计数器缓冲失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        }
+    }
+
+    /**
+     * 获取某张表的计数器缓冲,使用默认命名空间default
+     *
+     * @param tableName
+     * @return CounterBuffer
+     */
+    public CounterBuffer getCounterBuffer(String tableName) {
+        return getCounterBuffer(tableName, null);
+    }
+
+    /**
+     * 提交所有计数器缓冲中的增量
+     *
+     * @return void
+     */
+    public void flushCounters() {
+        counterBuffers.values().forEach(CounterBuffer::flush);
+    }
+
+    /**
+     * 批量导入,直接生成HFile并bulk load到表中,不经过WAL和memstore,适用于历史数据回填
+     * 输入不需要有序;同一次导入的单元格使用相同时间戳,rowKey+列重复时保留最后输入的值
+     * 导入期间表可以正常读写,完成后清空热点行缓存
+     *
+     * @param tableName
+     * @param rows      输入行,可使用BulkRows读取CSV,JSON Lines
+     * @param namespace
+     * @return BulkLoadResult
+     */
+    public BulkLoadResult bulkLoad(String tableName, Iterator<HBaseRow> rows, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("bulkLoad", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(tabName);
+            BulkLoader loader = new BulkLoader(config, connection, handleManager, tabName, rowKeyStrategies.get(tableName),
+                    bulkLoad.stagingDir, bulkLoad.bufferSize);
+            BulkLoadResult result = loader.load(rows);
+            hotRowCache.invalidateAll();
+            return result;
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("批量导入失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 批量导入,使用默认命名空间default
+     *
+     * @param tableName
+     * @param rows      输入行,可使用BulkRows读取CSV,JSON Lines
+     * @return BulkLoadResult
+     */
+    public BulkLoadResult bulkLoad(String tableName, Iterator<HBaseRow> rows) {
+        return bulkLoad(tableName, rows, null);
+    }
+
+    /**
+     * 在一次RPC中原子执行同一行的多个put,delete
+     *
+     * @param tableName
+     * @param rowKey
+     * @param change    行修改
+     * @param namespace
+     * @return void
+     */
+    public void mutateRow(String tableName, String rowKey, RowChange change, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("mutateRow", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(tabName);
+            RowMutations mutations = change.build(rowBytes(tableName, rowKey));
+            try (Table table = handleManager.getTable(tabName)) {
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, mutations);
+                table.mutateRow(mutations);
+                recordWrite(tableName, mutations);
+                afterWrite(indexUpdate);
+            }
+            hotRowCache.invalidate(tableName, rowKey);
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("修改数据失败,table:%s,rowKey:%s", tableName, rowKey);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 在一次RPC中原子执行同一行的多个put,delete,使用默认命名空间default
+     *
+     * @param tableName
+     * @param rowKey
+     * @param change    行修改
+     * @return void
+     */
+    public void mutateRow(String tableName, String rowKey, RowChange change) {
+        mutateRow(tableName, rowKey, change, null);
+    }
+
+    /**
+     * 条件修改,在服务端比较某列的当前值,满足条件时原子执行行修改,用于乐观锁,状态机流转等场景
+     * 比较时当前值在左,例: op为GREATER表示当前值大于expected
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily 条件列的列族
+     * @param column       条件列
+     * @param op           比较方式,expected为空时忽略
+     * @param expected     期望值,为空时表示条件列不存在
+     * @param change       条件满足时执行的行修改
+     * @param namespace
+     * @return boolean 条件是否满足,不满足时没有修改
+     */
+    public boolean checkAndMutate(String tableName, String rowKey, String columnFamily, String column, CompareOperator op,
+                                  String expected, RowChange change, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("checkAndMutate", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(tabName);
+            byte[] row = rowBytes(tableName, rowKey);
+            RowMutations mutations = change.build(row);
+            CheckAndMutate.Builder builder = CheckAndMutate.newBuilder(row);
+            if (expected == null)
+                builder.ifNotExists(Bytes.toBytes(columnFamily), Bytes.toBytes(column));
+            else
+                builder.ifMatches(Bytes.toBytes(columnFamily), Bytes.toBytes(column), op, Bytes.toBytes(expected));
+            boolean success;
+            // 条件不满足时提前写入的索引条目多余,查询时被过滤
+            IndexManager.IndexUpdate indexUpdate = beforeWrite(tableName, rowKey, mutations);
+            try (Table table = handleManager.getTable(tabName)) {
+                success = table.checkAndMutate(builder.build(mutations)).isSuccess();
+            }
+            if (success) {
+                recordWrite(tableName, mutations);
+                afterWrite(indexUpdate);
+                hotRowCache.invalidate(tableName, rowKey);
+            }
+            return success;
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("条件修改数据失败,table:%s,rowKey:%s", tableName, rowKey);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 条件修改,使用默认命名空间default
+     *
+     * @param tableName
+     * @param rowKey
+     * @param columnFamily 条件列的列族
+     * @param column       条件列
+     * @param op           比较方式,expected为空时忽略
+     * @param expected     期望值,为空时表示条件列不存在
+     * @param change       条件满足时执行的行修改
+     * @return boolean 条件是否满足,不满足时没有修改
+     */
+    public boolean checkAndMutate(String tableName, String rowKey, String columnFamily, String column, CompareOperator op,
+                                  String expected, RowChange change) {
+        return checkAndMutate(tableName, rowKey, columnFamily, column, op, expected, change, null);
+    }
+
+    /**
+     * 为某列创建二级索引,索引表不存在时创建,之后put,delete,mutateRow,save等写入同步维护索引
+     * 表中已有数据需要调用rebuildIndex回填;AsyncHBaseClient的写入同样维护索引,HBaseWriter,批量导入不维护索引
+     * 索引列不能再通过increment或计数器缓冲累加
+     *
+     * @param tableName
+     * @param columnFamily
+     * @param column
+     * @param namespace
+     * @return void
+     */
+    public void createIndex(String tableName, String columnFamily, String column, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        try {
+            checkTableExists(TableName.valueOf(tableName));
+            IndexManager.Index index = IndexManager.define(tableName, columnFamily, column);
+            createIndexTable(index);
+            indexManager.register(index);
+        } catch (LabradorException e) {
+            throw e;
+        } catch (Exception e) {
+            String msg = String.format("创建索引失败,table:%s,column:%s:%s", tableName, columnFamily, column);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        }
+    }
+
+    /**
+     * 为某列创建二级索引,使用默认命名空间default
+     *
+     * @param tableName
+     * @param columnFamily
+     * @param column
+     * @return void
+     */
+    public void createIndex(String tableName, String columnFamily, String column) {
+        createIndex(tableName, columnFamily, column, null);
+    }
+
+    /**
+     * 按索引列的值查询数据行: 前缀扫描索引表得到rowKey,再通过multi-get回表
+     * 回表时校验列值,跳过值已变化或写入未完成留下的条目
+     *
+     * @param tableName
+     * @param columnFamily 索引列的列族
+     * @param column       索引列
+     * @param value        列值
+     * @param limit        最多读取的索引条目数,小于等于0时不限制;被跳过的条目也计入
+     * @param namespace
+     * @return Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>,按rowKey排序
+     */
+    public Map<String, Map<String, Map<String, String>>> findByIndex(String tableName, String columnFamily, String column, String value,
+                                                                    int limit, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("findByIndex", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.READ, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            IndexManager.Index index = requireIndex(tableName, columnFamily, column);
+            byte[] valueBytes = Bytes.toBytes(value);
+            Scan scan = new Scan().setRowPrefixFilter(index.prefix(valueBytes)).addColumn(IndexManager.FAMILY, IndexManager.QUALIFIER);
+            if (limit > 0)
+                scan.setLimit(limit);
+            List<String> rowKeys = new ArrayList<>();
+            try (Table indexTable = cluster.getHandleManager().getTable(index.getIndexTable());
+                 ResultScanner rs = indexTable.getScanner(scan)) {
+                for (Result result : rs) {
+                    rowKeys.add(Bytes.toString(result.getValue(IndexManager.FAMILY, IndexManager.QUALIFIER)));
+                }
+            }
+            Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            int chunkSize = Math.max(batch.chunkSize, 1);
+            int stale = 0;
+            try (Table table = cluster.getHandleManager().getTable(tabName)) {
+                for (int from = 0; from < rowKeys.size(); from += chunkSize) {
+                    List<String> chunk = rowKeys.subList(from, Math.min(from + chunkSize, rowKeys.size()));
+                    List<Get> gets = new ArrayList<>(chunk.size());
+                    for (String rowKey : chunk) {
+                        gets.add(withConsistency(tableName, new Get(rowBytes(strategy, rowKey))));
+                    }
+                    Result[] results = table.get(gets);
+                    for (int i = 0; i < results.length; i++) {
+                        if (!Bytes.equals(results[i].getValue(index.getFamily(), index.getQualifier()), valueBytes)) {
+                            stale++;
+                            continue;
+                        }
+                        hBaseMetrics.recordRead(tableName, results[i]);
+                        rows.put(chunk.get(i), resultToMap(results[i]));
+                    }
+                }
+            }
+            if (stale > 0)
+                log.debug("索引 {} 跳过过期条目 {} 个,value:{}", index, stale, value);
+            return rows;
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("按索引查询数据失败,table:%s,column:%s:%s", tableName, columnFamily, column);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 按索引列的值查询数据行,不限制条数
+     *
+     * @param tableName
+     * @param columnFamily 索引列的列族
+     * @param column       索引列
+     * @param value        列值
+     * @param namespace
+     * @return Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>,按rowKey排序
+     */
+    public Map<String, Map<String, Map<String, String>>> findByIndex(String tableName, String columnFamily, String column, String value, String namespace) {
+        return findByIndex(tableName, columnFamily, column, value, 0, namespace);
+    }
+
+    /**
+     * 按索引列的值查询数据行,使用默认命名空间default
+     *
+     * @param tableName
+     * @param columnFamily 索引列的列族
+     * @param column       索引列
+     * @param value        列值
+     * @return Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>,按rowKey排序
+     */
+    public Map<String, Map<String, Map<String, String>>> findByIndex(String tableName, String columnFamily, String column, String value) {
+        return findByIndex(tableName, columnFamily, column, value, 0, null);
+    }
+
+    /**
+     * 重建索引: 并行扫描数据表中该列的所有值,通过BufferedMutator批量写入索引表
+     * 只回填缺少的条目,不删除多余的条目(查询时会被过滤);重建期间的写入仍同步维护索引
+     *
+     * @param tableName
+     * @param columnFamily 索引列的列族
+     * @param column       索引列
+     * @param namespace
+     * @return long 写入的索引条目数
+     */
+    public long rebuildIndex(String tableName, String columnFamily, String column, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("rebuildIndex", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(tabName);
+            IndexManager.Index index = requireIndex(tableName, columnFamily, column);
+            createIndexTable(index);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            Scan scan = new Scan().addColumn(index.getFamily(), index.getQualifier()).setCaching(1000).setCacheBlocks(false);
+            long[] entries = new long[1];
+            try (BufferedMutator mutator = connection.getBufferedMutator(index.getIndexTable())) {
+                parallelScanner.scan(tabName, scan, false,
+                        result -> index.entry(result.getValue(index.getFamily(), index.getQualifier()), rowKeyOf(strategy, result)),
+                        put -> {
+                            try {
+                                mutator.mutate(put);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                            entries[0]++;
+                        });
+                mutator.flush();
+            }
+            log.info("重建索引 {} 完成,条目数:{}", index, entries[0]);
+            return entries[0];
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("重建索引失败,table:%s,column:%s:%s", tableName, columnFamily, column);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 重建索引,使用默认命名空间default
+     *
+     * @param tableName
+     * @param columnFamily 索引列的列族
+     * @param column       索引列
+     * @return long 写入的索引条目数
+     */
+    public long rebuildIndex(String tableName, String columnFamily, String column) {
+        return rebuildIndex(tableName, columnFamily, column, null);
+    }
+
+    /**
+     * 扫描数据
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies
+     * @param namespace
+     * @return Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>
+     */
+    public Map<String, Map<String, Map<String, String>>> scan(String tableName, String startRow, String stopRow, String[] columnFamilies, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("scan", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.SCAN, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            try (Table table = cluster.getHandleManager().getTable(tabName)) {
+                Scan scan = buildScan(startRow, stopRow, null);
+                addFamilies(scan, columnFamilies);
+                try (ResultScanner rs = openScanner(cluster, tabName, table, scan, strategy, startRow, stopRow)) {
+                    Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
+                    for (Result result : rs) {
+                        hBaseMetrics.recordRead(tableName, result);
+                        Map<String, Map<String, String>> map = resultToMap(result);
+                        rows.put(rowKeyOf(strategy, result), map);
+                    }
+                    return rows;
+                }
+            }
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("扫描数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 扫描数据
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies
+     * @return Map<rowKey, Map<ColumnFamily, Map<Column qualifier, Value>>>
+     */
+    public Map<String, Map<String, Map<String, String>>> scan(String tableName, String startRow, String stopRow, String[] columnFamilies) {
+        return scan(tableName, startRow, stopRow, columnFamilies, null);
+    }
+
+    /**
+     * 流式扫描数据,逐行回调,扫描结束或回调抛出异常时关闭scanner
+     * 内存占用只与ScanOptions中的caching,maxResultSize有关,与扫描范围无关
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空
+     * @param consumer       每行数据的回调;设置了batch时同一行可能分多次回调
+     * @param namespace
+     * @return void
+     */
+    public void scan(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options, Consumer<HBaseRow> consumer, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("scan", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.SCAN, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            Scan scan = buildScan(startRow, stopRow, options);
+            addFamilies(scan, columnFamilies);
+            try (Table table = cluster.getHandleManager().getTable(tabName);
+                 ResultScanner rs = openScanner(cluster, tabName, table, scan, strategy, startRow, stopRow)) {
+                for (Result result : rs) {
+                    hBaseMetrics.recordRead(tableName, result);
+                    consumer.accept(toRow(result, rowKeyOf(strategy, result)));
+                }
+            }
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("扫描数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 流式扫描数据,逐行回调
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空
+     * @param consumer       每行数据的回调
+     * @return void
+     */
+    public void scan(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options, Consumer<HBaseRow> consumer) {
+        scan(tableName, startRow, stopRow, columnFamilies, options, consumer, null);
+    }
+
+    /**
+     * 流式扫描数据,返回的Stream持有scanner,使用完毕后必须close,建议使用try-with-resources
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空
+     * @param namespace
+     * @return Stream<HBaseRow>
+     */
+    public Stream<HBaseRow> scanStream(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options, String namespace) {
+        RowKeyStrategy strategy = rowKeyStrategies.get(buildTableNameWithNameSpace(tableName, namespace));
+        return scanAs(tableName, startRow, stopRow, columnFamilies, options, result -> toRow(result, rowKeyOf(strategy, result)), namespace);
+    }
+
+    /**
+     * 流式扫描数据并通过mapper直接转换为业务对象,返回的Stream持有scanner,使用完毕后必须close
+     * 配置了rowKey策略的表,mapper收到的Result中rowKey为实际存储的rowKey
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空
+     * @param mapper         行转换
+     * @param namespace
+     * @return Stream<T>
+     */
+    public <T> Stream<T> scanAs(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options, RowMapper<T> mapper, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("scanAs", tableName);
+        CallPermits permits = new CallPermits();
+        Table table = null;
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.SCAN, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            Scan scan = buildScan(startRow, stopRow, options);
+            addFamilies(scan, columnFamilies);
+            table = cluster.getHandleManager().getTable(tabName);
+            ResultScanner rs = openScanner(cluster, tabName, table, scan, strategy, startRow, stopRow);
+            return toStream(tableName, rs, table, sample, permits, mapper::mapRow);
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            closeQuietly(null, table);
+            permits.release();
+            sample.stop();
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            closeQuietly(null, table);
+            permits.release();
+            sample.stop();
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("扫描数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        }
+    }
+
+    /**
+     * 流式扫描数据,返回的Stream使用完毕后必须close
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空
+     * @return Stream<HBaseRow>
+     */
+    public Stream<HBaseRow> scanStream(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options) {
+        return scanStream(tableName, startRow, stopRow, columnFamilies, options, null);
+    }
+
+    /**
+     * 按Region并行扫描数据,适用于全表导出及大范围扫描
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空
+     * @param ordered        true: 按rowKey顺序回调; false: 按到达顺序回调,吞吐量更高
+     * @param consumer       每行数据的回调,在调用线程中执行
+     * @param namespace
+     * @return void
+     */
+    public void parallelScan(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options,
+                             boolean ordered, Consumer<HBaseRow> consumer, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("parallelScan", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.SCAN, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            Scan scan = buildScan(startRow, stopRow, options);
+            addFamilies(scan, columnFamilies);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            if (strategy == null) {
+                cluster.getParallelScanner().scan(tabName, scan, ordered, consumer);
+                return;
+            }
+            // 配置了rowKey策略时各分桶已并行扫描,按原始rowKey顺序回调
+            try (ResultScanner rs = new MergedScanner(cluster.getHandleManager(), scanExecutor, tabName, scan, strategy, startRow, stopRow)) {
+                for (Result result : rs) {
+                    hBaseMetrics.recordRead(tableName, result);
+                    consumer.accept(toRow(result, rowKeyOf(strategy, result)));
+                }
+            }
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("并行扫描数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 按Region并行扫描数据
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空
+     * @param ordered        true: 按rowKey顺序回调; false: 按到达顺序回调
+     * @param consumer       每行数据的回调
+     * @return void
+     */
+    public void parallelScan(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options,
+                             boolean ordered, Consumer<HBaseRow> consumer) {
+        parallelScan(tableName, startRow, stopRow, columnFamilies, options, ordered, consumer, null);
+    }
+
+    /**
+     * 分页扫描,每页只发起一次有限行数的扫描
+     * 游标为上一页最后一行的rowKey编码,下一页从该行之后(不包含该行)开始
+     *
+     * @param tableName
+     * @param cursor         上一页返回的nextCursor,为空时从表头(reversed时从表尾)开始
+     * @param pageSize       每页行数
+     * @param columnFamilies 为空时扫描所有列族
+     * @param reversed       是否倒序翻页
+     * @param options        扫描参数,可为空,其中的过滤器与分页过滤器同时生效
+     * @param namespace
+     * @return ScanPage
+     */
+    public ScanPage scanPage(String tableName, String cursor, int pageSize, String[] columnFamilies, boolean reversed, ScanOptions options, String namespace) {
+        if (pageSize <= 0)
+            throw new LabradorException("pageSize必须大于0.");
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        if (rowKeyStrategies.containsKey(tableName))
+            throw new LabradorException(String.format("表 %s 配置了rowKey策略,不支持分页扫描", tableName));
+        HBaseMetrics.Sample sample = hBaseMetrics.start("scanPage", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.SCAN, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            Scan scan = new Scan();
+            if (options != null)
+                options.applyTo(scan);
+            scan.setReversed(reversed);
+            if (StringUtils.isNotBlank(cursor))
+                scan.withStartRow(decodeCursor(cursor), false);
+            // 多取一行用于判断是否还有下一页
+            int limit = pageSize + 1;
+            scan.setLimit(limit);
+            scan.setCaching(limit);
+            PageFilter pageFilter = new PageFilter(limit);
+            scan.setFilter(scan.getFilter() == null ? pageFilter : new FilterList(scan.getFilter(), pageFilter));
+            addFamilies(scan, columnFamilies);
+            List<HBaseRow> rows = new ArrayList<>(limit);
+            byte[] lastRow = null;
+            try (Table table = cluster.getHandleManager().getTable(tabName);
+                 ResultScanner rs = table.getScanner(scan)) {
+                for (Result result : rs) {
+                    if (rows.size() == pageSize)
+                        return new ScanPage(rows, encodeCursor(lastRow));
+                    hBaseMetrics.recordRead(tableName, result);
+                    rows.add(toRow(result));
+                    lastRow = result.getRow();
+                }
+            }
+            return new ScanPage(rows, null);
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("分页扫描数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 分页扫描
+     *
+     * @param tableName
+     * @param cursor         上一页返回的nextCursor,为空时从表头开始
+     * @param pageSize       每页行数
+     * @param columnFamilies 为空时扫描所有列族
+     * @return ScanPage
+     */
+    public ScanPage scanPage(String tableName, String cursor, int pageSize, String[] columnFamilies) {
+        return scanPage(tableName, cursor, pageSize, columnFamilies, false, null, null);
+    }
+
+    /**
+     * 分页扫描
+     *
+     * @param tableName
+     * @param cursor         上一页返回的nextCursor,为空时从表头(reversed时从表尾)开始
+     * @param pageSize       每页行数
+     * @param columnFamilies 为空时扫描所有列族
+     * @param reversed       是否倒序翻页
+     * @param namespace
+     * @return ScanPage
+     */
+    public ScanPage scanPage(String tableName, String cursor, int pageSize, String[] columnFamilies, boolean reversed, String namespace) {
+        return scanPage(tableName, cursor, pageSize, columnFamilies, reversed, null, namespace);
+    }
+
+    /**
+     * 保存实体,表名及列由@HTable,@RowKey,@Column注解确定,为空的字段不写入
+     *
+     * @param entity
+     * @return void
+     */
+    public <T> void save(T entity) {
+        @SuppressWarnings("unchecked")
+        EntityMeta<T> meta = EntityMeta.of((Class<T>) entity.getClass());
+        TableName tabName = meta.getTableName();
+        HBaseMetrics.Sample sample = hBaseMetrics.start("save", tabName.getNameAsString());
+        CallPermits permits = new CallPermits();
+        try {
+            guard(tabName.getNameAsString(), permits);
+            checkTableExists(tabName);
+            try (Table table = handleManager.getTable(tabName)) {
+                String rowKey = meta.rowKeyOf(entity);
+                Put put = meta.toPut(entity, rowBytes(tabName.getNameAsString(), rowKey));
+                IndexManager.IndexUpdate indexUpdate = beforeWrite(tabName.getNameAsString(), rowKey, put);
+                table.put(put);
+                hBaseMetrics.recordWrite(tabName.getNameAsString(), put);
+                afterWrite(indexUpdate);
+                hotRowCache.invalidate(tabName.getNameAsString(), rowKey);
+            }
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tabName.getNameAsString(), e);
+            String msg = String.format("保存实体失败,table:%s,entity:%s", tabName, entity.getClass().getName());
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 根据rowKey查询实体,只读取实体中声明的列,行不存在时返回null
+     *
+     * @param type
+     * @param rowKey
+     * @return T
+     */
+    public <T> T find(Class<T> type, String rowKey) {
+        EntityMeta<T> meta = EntityMeta.of(type);
+        TableName tabName = meta.getTableName();
+        HBaseMetrics.Sample sample = hBaseMetrics.start("find", tabName.getNameAsString());
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.READ, tabName.getNameAsString(), permits);
+            checkTableExists(cluster, tabName);
+            try (Table table = cluster.getHandleManager().getTable(tabName)) {
+                Result result = table.get(meta.toGet(rowBytes(tabName.getNameAsString(), rowKey)));
+                hBaseMetrics.recordRead(tabName.getNameAsString(), result);
+                return result.isEmpty() ? null : meta.toEntity(result, rowKey);
+            }
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tabName.getNameAsString(), e);
+            String msg = String.format("查询实体失败,table:%s,rowKey:%s", tabName, rowKey);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 流式扫描实体,只读取实体中声明的列,返回的Stream使用完毕后必须close
+     *
+     * @param type
+     * @param startRow
+     * @param stopRow
+     * @param options  扫描参数,可为空
+     * @return Stream<T>
+     */
+    public <T> Stream<T> scan(Class<T> type, String startRow, String stopRow, ScanOptions options) {
+        EntityMeta<T> meta = EntityMeta.of(type);
+        TableName tabName = meta.getTableName();
+        HBaseMetrics.Sample sample = hBaseMetrics.start("scan", tabName.getNameAsString());
+        CallPermits permits = new CallPermits();
+        Table table = null;
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.SCAN, tabName.getNameAsString(), permits);
+            checkTableExists(cluster, tabName);
+            Scan scan = buildScan(startRow, stopRow, options);
+            meta.addColumns(scan);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tabName.getNameAsString());
+            table = cluster.getHandleManager().getTable(tabName);
+            ResultScanner rs = openScanner(cluster, tabName, table, scan, strategy, startRow, stopRow);
+            return toStream(tabName.getNameAsString(), rs, table, sample, permits, result -> meta.toEntity(result, rowKeyOf(strategy, result)));
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            closeQuietly(null, table);
+            permits.release();
+            sample.stop();
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            closeQuietly(null, table);
+            permits.release();
+            sample.stop();
+            invalidateIfTableNotFound(tabName.getNameAsString(), e);
+            String msg = String.format("扫描实体失败,table:%s", tabName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        }
+    }
+
+    /**
+     * 扫描某个列族数据
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamily
+     * @param columns
+     * @param namespace
+     * @return Map<ColumnFamily, Map<Column qualifier, Value>>
+     */
+    public Map<String, Map<String, Map<String, String>>> scanColumnFamily(String tableName, String startRow, String stopRow, String columnFamily, String[] columns, String namespace) {
+        tableName = buildTableNameWithNameSpace(tableName, namespace);
+        HBaseMetrics.Sample sample = hBaseMetrics.start("scanColumnFamily", tableName);
+        CallPermits permits = new CallPermits();
+        try {
+            HBaseCluster cluster = route(ClusterRouter.Operation.SCAN, tableName, permits);
+            TableName tabName = TableName.valueOf(tableName);
+            checkTableExists(cluster, tabName);
+            RowKeyStrategy strategy = rowKeyStrategies.get(tableName);
+            try (Table table = cluster.getHandleManager().getTable(tabName)) {
+                Scan scan = buildScan(startRow, stopRow, null);
+                if (StringUtils.isNotBlank(columnFamily) && columns != null && columns.length > 0) {
+                    byte[] colFamily = Bytes.toBytes(columnFamily);
+                    for (String column : columns) {
+                        scan.addColumn(colFamily, Bytes.toBytes(column));
+                    }
+                }
+                try (ResultScanner rs = openScanner(cluster, tabName, table, scan, strategy, startRow, stopRow)) {
+                    Map<String, Map<String, Map<String, String>>> rows = new LinkedHashMap<>();
+                    for (Result result : rs) {
+                        hBaseMetrics.recordRead(tableName, result);
+                        Map<String, Map<String, String>> map = resultToMap(result);
+                        rows.put(rowKeyOf(strategy, result), map);
+                    }
+                    return rows;
+                }
+            }
+        } catch (LabradorException e) {
+            sample.error();
+            permits.error(e);
+            throw e;
+        } catch (Exception e) {
+            sample.error();
+            permits.error(e);
+            invalidateIfTableNotFound(tableName, e);
+            String msg = String.format("扫描数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        } finally {
+            permits.release();
+            sample.stop();
+        }
+    }
+
+    /**
+     * 扫描某个列族数据
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamily
+     * @param columns
+     * @return Map<ColumnFamily, Map<Column qualifier, Value>>
+     */
+    public Map<String, Map<String, Map<String, String>>> scanColumnFamily(String tableName, String startRow, String stopRow, String columnFamily, String[] columns) {
+        return scanColumnFamily(tableName, startRow, stopRow, columnFamily, columns, null);
+    }
+
+    static Scan buildScan(String startRow, String stopRow, ScanOptions options) {
+        Scan scan = new Scan();
+        if (StringUtils.isNotBlank(startRow))
+            scan.withStartRow(Bytes.toBytes(startRow));
+        if (StringUtils.isNotBlank(stopRow))
+            scan.withStopRow(Bytes.toBytes(stopRow));
+        if (options != null)
+            options.applyTo(scan);
+        return scan;
+    }
+
+    private static void addFamilies(Scan scan, String[] columnFamilies) {
+        if (columnFamilies != null && columnFamilies.length > 0) {
+            for (String columnFamily : columnFamilies) {
+                scan.addFamily(Bytes.toBytes(columnFamily));
+            }
+        }
+    }
+
+    private static String encodeCursor(byte[] row) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(row);
+    }
+
+    private static byte[] decodeCursor(String cursor) {
+        try {
+            return Base64.getUrlDecoder().decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new LabradorException(String.format("无效的分页游标:%s", cursor));
+        }
+    }
+
+    static HBaseRow toRow(Result result, String rowKey) {
+        return new HBaseRow(rowKey, resultToMap(result));
+    }
+
+    static HBaseRow toRow(Result result) {
+        return toRow(result, Bytes.toString(result.getRow()));
+    }
+
+    /**
+     * 配置了rowKey策略时按策略拆分范围并行扫描后归并,否则直接使用table扫描
+     * 归并扫描使用独立的Table句柄,不使用传入的table
+     */
+    private ResultScanner openScanner(HBaseCluster cluster, TableName tabName, Table table, Scan scan, RowKeyStrategy strategy, String startRow, String stopRow) throws IOException {
+        if (strategy == null)
+            return table.getScanner(scan);
+        return new MergedScanner(cluster.getHandleManager(), scanExecutor, tabName, scan, strategy, startRow, stopRow);
+    }
+
+    /**
+     * 开启隔离舱和熔断时获取该表的调用许可,被拒绝时抛出CIRCUIT_OPEN或BULKHEAD_FULL
+     */
+    private void guard(String tableName, CallPermits permits) {
+        if (tableGuards != null)
+            permits.table = tableGuards.get(tableName).acquire();
+    }
+
+    /**
+     * 按操作类型选择集群,路由到主集群并开启故障转移时主集群的熔断许可随permits释放
+     * 可故障转移的读请求只由主集群熔断器决定是否转移,不获取表的调用许可,避免主集群故障时表先被熔断而无法转移
+     */
+    private HBaseCluster route(ClusterRouter.Operation operation, String tableName, CallPermits permits) {
+        if (tableGuards != null && !clusterRouter.canFailover(operation))
+            permits.table = tableGuards.get(tableName).acquire();
+        return clusterRouter.route(operation, permit -> permits.route = permit);
+    }
+
+    private static String rowKeyOf(RowKeyStrategy strategy, Result result) {
+        String storedKey = Bytes.toString(result.getRow());
+        return strategy == null ? storedKey : strategy.decode(storedKey);
+    }
+
+    private static byte[] rowBytes(RowKeyStrategy strategy, String rowKey) {
+        return Bytes.toBytes(strategy == null ? rowKey : strategy.encode(rowKey));
+    }
+
+    /**
+     * 原始rowKey转换为实际存储的rowKey
+     *
+     * @param tableName 表名(带命名空间)
+     * @param rowKey    原始rowKey
+     * @return byte[]
+     */
+    byte[] rowBytes(String tableName, String rowKey) {
+        return rowBytes(rowKeyStrategies.get(tableName), rowKey);
+    }
+
+    RowKeyStrategy getRowKeyStrategy(String tableName) {
+        return rowKeyStrategies.get(tableName);
+    }
+
+    /**
+     * 将scanner包装为Stream,调用在Stream关闭时才结束:关闭时释放scanner,Table及调用许可并停止计时
+     * 迭代中的异常转换为LabradorException,计入错误指标及熔断统计
+     */
+    private <T> Stream<T> toStream(String tableName, ResultScanner rs, Table table, HBaseMetrics.Sample sample,
+                                   CallPermits permits, Function<Result, T> mapper) {
+        Iterator<Result> results = rs.iterator();
+        Iterator<T> iterator = new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return results.hasNext();
+                } catch (RuntimeException e) {
+                    throw scanFailed(e);
+                }
+            }
+
+            @Override
+            public T next() {
+                Result result;
+                try {
+                    result = results.next();
+                } catch (RuntimeException e) {
+                    throw scanFailed(e);
+                }
+                hBaseMetrics.recordRead(tableName, result);
+                return mapper.apply(result);
+            }
+
+            private LabradorException scanFailed(RuntimeException e) {
+                sample.error();
+                permits.error(e);
+                invalidateIfTableNotFound(tableName, e);
+                String msg = String.format("扫描数据失败,table:%s", tableName);
+                log.error(msg, e);
+                return new LabradorException(ErrorCode.of(e), msg);
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> {
+                    closeQuietly(rs, table);
+                    permits.release();
+                    sample.stop();
+                });
+    }
+
+    private static void closeQuietly(ResultScanner rs, Table table) {
+        if (rs != null)
+            rs.close();
+        if (table != null) {
+            try {
+                table.close();
+            } catch (IOException e) {
+                log.warn("关闭Table失败.", e);
+            }
+        }
+    }
+
+    /**
+     * 单个列族的结果转换为 列名->值,直接按offset/length从Cell底层数组解码,不复制字节
+     */
+    static Map<String, String> familyToMap(Result result) {
+        Cell[] cells = result.rawCells();
+        Map<String, String> kv = new HashMap<>();
+        if (cells == null || cells.length == 0)
+            return kv;
+        for (Cell cell : cells) {
+            kv.put(qualifierToString(cell), valueToString(cell));
+        }
+        return kv;
+    }
+
+    /**
+     * 直接按offset/length从Cell底层数组解码,不复制字节;相邻单元格属于同一列族时复用列族的String和Map
+     */
+    static Map<String, Map<String, String>> resultToMap(Result result) {
+        Cell[] cells = result.rawCells();
+        Map<String, Map<String, String>> kv = new HashMap<>();
+        if (cells == null || cells.length == 0)
+            return kv;
+        Cell previous = null;
+        Map<String, String> family = null;
+        for (Cell cell : cells) {
+            if (previous == null || !CellUtil.matchingFamily(previous, cell)) {
+                String columnFamily = Bytes.toString(cell.getFamilyArray(), cell.getFamilyOffset(), cell.getFamilyLength());
+                family = kv.computeIfAbsent(columnFamily, k -> new HashMap<>());
+            }
+            family.put(qualifierToString(cell), valueToString(cell));
+            previous = cell;
+        }
+        return kv;
+    }
+
+    private static String qualifierToString(Cell cell) {
+        return Bytes.toString(cell.getQualifierArray(), cell.getQualifierOffset(), cell.getQualifierLength());
+    }
+
+    private static String valueToString(Cell cell) {
+        return Bytes.toString(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+    }
+
+    /**
+     * HBase客户端配置
+     *
+     * @return Configuration
+     */
+    public Configuration getConfiguration() {
+        return config;
+    }
+
+    /**
+     * Table,Admin句柄管理,可用于查看存活及累计创建的句柄数
+     *
+     * @return HBaseHandleManager
+     */
+    public HBaseHandleManager getHandleManager() {
+        return handleManager;
+    }
+
+    /**
+     * 热点行缓存,可用于查看命中率及淘汰数
+     *
+     * @return RowCache
+     */
+    public RowCache getHotRowCache() {
+        return hotRowCache;
+    }
+
+    /**
+     * 多集群路由,可获取各集群及主集群的熔断状态
+     *
+     * @return ClusterRouter
+     */
+    public ClusterRouter getClusterRouter() {
+        return clusterRouter;
+    }
+
+    /**
+     * 各表的隔离舱和熔断器,未开启时返回null
+     *
+     * @return TableGuards
+     */
+    public TableGuards getTableGuards() {
+        return tableGuards;
+    }
+
+    /**
+     * 表元数据缓存,可用于查看命中率
+     *
+     * @return TableMetaCache
+     */
+    public TableMetaCache getTableMetaCache() {
+        return tableMetaCache;
+    }
+
+    /**
+     * 实际生效的执行模式,配置为virtual但JDK不支持时为PLATFORM
+     *
+     * @return HBaseExecutors.Mode
+     */
+    public HBaseExecutors.Mode getExecutionMode() {
+        return executionMode;
+    }
+
+    private IndexManager.Index requireIndex(String tableName, String columnFamily, String column) {
+        IndexManager.Index index = indexManager.find(tableName, columnFamily, column);
+        if (index == null)
+            throw new LabradorException(ErrorCode.BAD_REQUEST, String.format("表 %s 的列 %s:%s 没有索引", tableName, columnFamily, column));
+        return index;
+    }
+
+    private void createIndexTable(IndexManager.Index index) throws IOException {
+        TableName indexTable = index.getIndexTable();
+        try (Admin admin = handleManager.getAdmin()) {
+            if (admin.tableExists(indexTable))
+                return;
+            // 索引表rowKey前缀相同的比例高,使用FAST_DIFF编码
+            FamilySpec family = FamilySpec.of(Bytes.toString(IndexManager.FAMILY))
+                    .dataBlockEncoding(DataBlockEncoding.FAST_DIFF)
+                    .maxVersions(1);
+            admin.createTable(TableSpec.create().family(family).build(indexTable));
+            log.info("创建索引表 {} 成功.", indexTable);
+        } catch (TableExistsException e) {
+            log.debug("索引表 {} 已存在.", indexTable);
+        } finally {
+            tableMetaCache.invalidate(indexTable);
+        }
+    }
+
+    boolean hasIndex(String tableName) {
+        return !indexManager.get(tableName).isEmpty();
+    }
+
+    /**
+     * 写数据前计算并写入新的索引条目,表没有索引或没有修改索引列时返回null
+     */
+    IndexManager.IndexUpdate beforeWrite(String tableName, String rowKey, Row action) throws IOException, InterruptedException {
+        return beforeWrite(tableName, Collections.singletonList(rowKey), Collections.singletonList(action));
+    }
+
+    private IndexManager.IndexUpdate beforeWrite(String tableName, List<String> rowKeys, List<? extends Row> actions) throws IOException, InterruptedException {
+        IndexManager.IndexUpdate update = indexManager.prepare(tableName, rowKeys, actions);
+        if (update != null)
+            update.beforeWrite();
+        return update;
+    }
+
+    /**
+     * 数据写入成功后删除被替换的索引条目
+     */
+    static void afterWrite(IndexManager.IndexUpdate update) {
+        if (update != null)
+            update.afterWrite();
+    }
+
+    /**
+     * 批量写入后删除被替换的索引条目,写入失败的行保留旧条目
+     */
+    private static void afterWrite(IndexManager.IndexUpdate update, Map<String, ? extends BatchResult<?>> results) {
+        if (update == null)
+            return;
+        Set<String> failed = new HashSet<>();
+        results.forEach((rowKey, result) -> {
+            if (!result.isSuccess())
+                failed.add(rowKey);
+        });
+        update.afterWrite(failed);
+    }
+
+    private void checkTableExists(TableName tabName) throws IOException {
+        checkTableExists(primaryCluster, tabName);
+    }
+
+    /**
+     * 缓存未命中时在实际执行操作的集群上检查,主集群故障转移期间不依赖主集群
+     */
+    private void checkTableExists(HBaseCluster cluster, TableName tabName) throws IOException {
+        if (!tableMetaCache.tableExists(tabName, t -> loadTableExists(cluster, t)))
+            throw new LabradorException(ErrorCode.TABLE_NOT_FOUND, String.format("表 %s 不存在", tabName.getNameAsString()));
+    }
+
+    private static boolean loadTableExists(HBaseCluster cluster, TableName tabName) throws IOException {
+        try (Admin admin = cluster.getHandleManager().getAdmin()) {
+            return admin.tableExists(tabName);
+        }
+    }
+
+    /**
+     * 开启请求合并时相同coalesceKey的并发请求共享一次RPC,不同key在时间窗口内合并为multi-get
+     * 请求合并只用于主集群,路由到其他集群时直接执行
+     */
+    private Result get(HBaseCluster cluster, TableName tabName, Get get, String coalesceKey) throws IOException {
+        withConsistency(tabName.getNameAsString(), get);
+        Result result;
+        if (getCoalescer != null && cluster == primaryCluster) {
+            result = getCoalescer.get(tabName, get, coalesceKey);
+        } else {
+            try (Table table = cluster.getHandleManager().getTable(tabName)) {
+                result = table.get(get);
+            }
+        }
+        hBaseMetrics.recordRead(tabName.getNameAsString(), result);
+        return result;
+    }
+
+    /**
+     * 开启对冲读的表使用TIMELINE一致性,主Region在primaryCallTimeout内未返回时同时请求副本,取最先返回的结果
+     * 副本返回的数据可能落后于主Region,可通过Result.isStale()判断
+     */
+    private Get withConsistency(String tableName, Get get) {
+        if (hedgedReadTables.contains(tableName))
+            get.setConsistency(Consistency.TIMELINE);
+        return get;
+    }
+
+    private void recordWrite(String tableName, RowMutations mutations) {
+        for (Mutation mutation : mutations.getMutations()) {
+            hBaseMetrics.recordWrite(tableName, mutation);
+        }
+    }
+
+    private void invalidateRows(String tableName, Collection<String> rowKeys) {
+        for (String rowKey : rowKeys) {
+            hotRowCache.invalidate(tableName, rowKey);
+        }
+    }
+
+    /**
+     * 数据读写时发现表不存在(如表已被删除),使对应的表元数据缓存失效
+     */
+    private void invalidateIfTableNotFound(String tableName, Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof TableNotFoundException) {
+                tableMetaCache.invalidate(TableName.valueOf(tableName));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 按batch.chunkSize分批执行,rowKeys与actions一一对应
+     * 部分操作失败时Table.batch会抛出RetriesExhaustedWithDetailsException,失败原因记录在results对应位置
+     * 每批使用独立的Table;虚拟线程模式下各批并发提交,平台线程模式下依次提交,返回结果的顺序与rowKeys一致
+     */
+    private <T> Map<String, BatchResult<T>> batchByChunk(HBaseHandleManager handles, TableName tabName, List<String> rowKeys,
+                                                         List<? extends Row> actions, ResultMapper<T> mapper) throws IOException, InterruptedException {
+        Map<String, BatchResult<T>> results = new LinkedHashMap<>();
+        int chunkSize = Math.max(batch.chunkSize, 1);
+        if (batchExecutor == null || actions.size() <= chunkSize) {
+            for (int from = 0; from < actions.size(); from += chunkSize) {
+                results.putAll(batchChunk(handles, tabName, rowKeys, actions, from, chunkSize, mapper));
+            }
+            return results;
+        }
+        List<Future<Map<String, BatchResult<T>>>> futures = new ArrayList<>();
+        try {
+            for (int from = 0; from < actions.size(); from += chunkSize) {
+                int chunkFrom = from;
+                futures.add(batchExecutor.submit(() -> batchChunk(handles, tabName, rowKeys, actions, chunkFrom, chunkSize, mapper)));
+            }
+            for (Future<Map<String, BatchResult<T>>> future : futures) {
+                results.putAll(future.get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+                throw (IOException) cause;
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            throw new IOException(cause);
+        } finally {
+            futures.forEach(future -> future.cancel(true));
+        }
+        return results;
+    }
+
+    private <T> Map<String, BatchResult<T>> batchChunk(HBaseHandleManager handles, TableName tabName, List<String> rowKeys,
+                                                       List<? extends Row> actions, int from, int chunkSize, ResultMapper<T> mapper) throws IOException, InterruptedException {
+        Map<String, BatchResult<T>> results = new LinkedHashMap<>();
+        String tableName = tabName.getNameAsString();
+        List<? extends Row> chunk = actions.subList(from, Math.min(from + chunkSize, actions.size()));
+        Object[] chunkResults = new Object[chunk.size()];
+        try (Table table = handles.getTable(tabName)) {
+            table.batch(chunk, chunkResults);
+        } catch (RetriesExhaustedWithDetailsException e) {
+            log.warn("批量操作部分失败,table:{},失败数:{}", tableName, e.getNumExceptions());
+        }
+        for (int i = 0; i < chunkResults.length; i++) {
+            String rowKey = rowKeys.get(from + i);
+            Object result = chunkResults[i];
+            if (result instanceof Result) {
+                Row action = chunk.get(i);
+                if (action instanceof Mutation)
+                    hBaseMetrics.recordWrite(tableName, (Mutation) action);
+                else
+                    hBaseMetrics.recordRead(tableName, (Result) result);
+                results.put(rowKey, BatchResult.success(mapper.map((Result) result)));
+            }
+            else if (result instanceof Throwable)
+                results.put(rowKey, BatchResult.failure(((Throwable) result).getMessage()));
+            else
+                results.put(rowKey, BatchResult.failure("未返回执行结果"));
+        }
+        return results;
+    }
+
+    static String buildTableNameWithNameSpace(String tableName, String namespace) {
+        if (StringUtils.isNotBlank(namespace))
+            tableName = namespace + ":" + tableName;
+        return tableName;
+    }
+
+    @PostConstruct
+    private void init() throws IOException {
+        config = HBaseConfiguration.create();
+        config.set("hbase.zookeeper.quorum", zookeeper.quorum);
+        client.apply(config);
+        if (client.hedgedRead.enabled && client.hedgedRead.tables != null) {
+            hedgedReadTables = new HashSet<>(client.hedgedRead.tables);
+            log.info("对冲读已开启,tables:{}", hedgedReadTables);
+        }
+        HBaseAdmin.available(config);
+        connection = ConnectionFactory.createConnection(config);
+        handleManager = new HBaseHandleManager(connection, handle.adminPoolSize);
+        hBaseMetrics = new HBaseMetrics(meterRegistry.getIfAvailable(SimpleMeterRegistry::new), metrics.slowThreshold, metrics.histogram);
+        hBaseMetrics.bindHandles(handleManager);
+        if (guard.enabled) {
+            tableGuards = new TableGuards(tableName -> {
+                TableGuard tableGuard = guard.build(tableName);
+                hBaseMetrics.bindGuard(tableGuard);
+                return tableGuard;
+            });
+        }
+        tableMetaCache = new TableMetaCache(tableCache.ttl, tableCache.negativeTtl, tableCache.maxSize);
+        hotRowCache = buildRowCache();
+        rowKeyStrategy.tables.forEach((name, table) -> rowKeyStrategies.put(name, table.build()));
+        if (coalesce.enabled)
+            getCoalescer = new GetCoalescer(handleManager, coalesce.windowMicros, coalesce.maxBatchSize);
+        executionMode = execution.mode;
+        if (executionMode == HBaseExecutors.Mode.VIRTUAL && !HBaseExecutors.isVirtualThreadSupported()) {
+            log.warn("当前JDK {} 不支持虚拟线程,使用平台线程模式.", Runtime.version());
+            executionMode = HBaseExecutors.Mode.PLATFORM;
+        }
+        scanExecutor = HBaseExecutors.newExecutor(executionMode, "hbase-parallel-scan-", parallelScan.threads);
+        if (executionMode == HBaseExecutors.Mode.VIRTUAL) {
+            batchExecutor = HBaseExecutors.newVirtualThreadPerTaskExecutor("hbase-batch-");
+            log.info("虚拟线程模式已开启.");
+        }
+        parallelScanner = new ParallelScanner(connection, handleManager, hBaseMetrics, scanExecutor, parallelScan.queueCapacity);
+        counterScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "hbase-counter-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        clusterRouter = buildClusterRouter();
+        indexManager = new IndexManager(handleManager);
+        for (Map.Entry<String, List<String>> entry : index.tables.entrySet()) {
+            for (String column : entry.getValue()) {
+                int separator = column.indexOf(':');
+                if (separator <= 0 || separator == column.length() - 1)
+                    throw new LabradorException(ErrorCode.BAD_REQUEST, String.format("索引列 %s 格式错误,应为 列族:列名", column));
+                IndexManager.Index definition = IndexManager.define(entry.getKey(), column.substring(0, separator), column.substring(separator + 1));
+                createIndexTable(definition);
+                indexManager.register(definition);
+            }
+        }
+    }
+
+    private ClusterRouter buildClusterRouter() throws IOException {
+        primaryCluster = new HBaseCluster(PRIMARY_CLUSTER, config, connection, handleManager, parallelScanner);
+        Map<String, HBaseCluster> all = new LinkedHashMap<>();
+        all.put(PRIMARY_CLUSTER, primaryCluster);
+        for (Map.Entry<String, ClusterProperty> entry : clusters.entrySet()) {
+            Configuration clusterConfig = HBaseConfiguration.create();
+            clusterConfig.set("hbase.zookeeper.quorum", entry.getValue().quorum);
+            client.apply(clusterConfig);
+            Connection clusterConnection = ConnectionFactory.createConnection(clusterConfig);
+            HBaseHandleManager clusterHandles = new HBaseHandleManager(clusterConnection, handle.adminPoolSize);
+            all.put(entry.getKey(), new HBaseCluster(entry.getKey(), clusterConfig, clusterConnection, clusterHandles,
+                    new ParallelScanner(clusterConnection, clusterHandles, hBaseMetrics, scanExecutor, parallelScan.queueCapacity)));
+            log.info("连接集群 {} 成功,quorum:{}", entry.getKey(), entry.getValue().quorum);
+        }
+        Map<ClusterRouter.Operation, String> routes = new EnumMap<>(ClusterRouter.Operation.class);
+        routes.put(ClusterRouter.Operation.READ, routing.read);
+        routes.put(ClusterRouter.Operation.SCAN, routing.scan);
+        TableGuard primaryHealth = new TableGuard("cluster:" + PRIMARY_CLUSTER, 0, 0, routing.windowSize, routing.minimumCalls,
+                routing.failureRateThreshold, routing.slowCallThreshold, routing.slowCallRateThreshold, routing.openDuration, routing.halfOpenProbes);
+        return new ClusterRouter(all, PRIMARY_CLUSTER, routes, routing.failover, primaryHealth);
+    }
+
+    private RowCache buildRowCache() {
+        Map<String, RowCache.TableRule> rules = new HashMap<>();
+        if (rowCache.enabled) {
+            rowCache.tables.forEach((name, table) -> {
+                long ttl = table.ttl > 0 ? table.ttl : rowCache.ttl;
+                Set<String> families = table.families == null ? null : new HashSet<>(table.families);
+                rules.put(name, new RowCache.TableRule(families, ttl));
+            });
+            log.info("热点行缓存已开启,tables:{}", rules.keySet());
+        }
+        return new RowCache(rowCache.maxWeight, rules);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        writers.values().forEach(HBaseWriter::close);
+        writers.clear();
+        counterBuffers.values().forEach(CounterBuffer::close);
+        counterBuffers.clear();
+        if (counterScheduler != null)
+            counterScheduler.shutdownNow();
+        if (scanExecutor != null)
+            scanExecutor.shutdownNow();
+        if (batchExecutor != null)
+            batchExecutor.shutdownNow();
+        if (clusterRouter != null) {
+            clusterRouter.getClusters().stream()
+                    .filter(cluster -> cluster != primaryCluster)
+                    .forEach(HBaseCluster::close);
+        }
+        if (handleManager != null)
+            handleManager.close();
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (IOException e) {
+                log.warn("关闭HBase连接失败.", e);
+            }
+        }
+    }
+
+    @Setter
+    private static class ZookeeperProperty {
+        private String quorum;
+    }
+
+    @Setter
+    private static class ClusterProperty {
+        /**
+         * 该集群的ZooKeeper地址
+         */
+        private String quorum;
+    }
+
+    @Setter
+    private static class RoutingProperty {
+        /**
+         * 按rowKey读取的目标集群,为空时使用主集群
+         */
+        private String read;
+        /**
+         * 扫描的目标集群,为空时使用主集群,分析类扫描可路由到副本集群
+         */
+        private String scan;
+        /**
+         * 主集群读请求熔断时转到的集群,为空时不转移
+         */
+        private String failover;
+        /**
+         * 统计窗口的调用数
+         */
+        private int windowSize = 100;
+        /**
+         * 窗口内至少有这么多次调用才会转移
+         */
+        private int minimumCalls = 20;
+        /**
+         * 失败率阈值,百分比
+         */
+        private int failureRateThreshold = 50;
+        /**
+         * 慢调用阈值,毫秒
+         */
+        private long slowCallThreshold = 1000;
+        /**
+         * 慢调用率阈值,百分比
+         */
+        private int slowCallRateThreshold = 50;
+        /**
+         * 转移后到重新探测主集群的时间,毫秒
+         */
+        private long openDuration = 30000;
+        /**
+         * 探测主集群的请求数,全部成功后读请求回到主集群
+         */
+        private int halfOpenProbes = 10;
+    }
+
+    /**
+     * 共享Connection的超时及重试参数,小于等于0时使用HBase默认值
+     * HBase默认重试次数多且operation超时长,单个RegionServer变慢时一次调用可能阻塞数分钟,这里默认值按在线服务收紧
+     * 重试间隔为pause乘以HBase内置的退避系数(1,2,3,5,10,20...),并附加随机抖动
+     */
+    @Setter
+    private static class ClientProperty {
+        /**
+         * 单次RPC超时,毫秒
+         */
+        private int rpcTimeout = 2000;
+        /**
+         * 读RPC超时(get,scan),毫秒,未设置时使用rpcTimeout
+         */
+        private int readRpcTimeout;
+        /**
+         * 写RPC超时(put,delete,increment),毫秒,未设置时使用rpcTimeout
+         */
+        private int writeRpcTimeout;
+        /**
+         * 一次操作包括所有重试的总超时,毫秒
+         */
+        private int operationTimeout = 10000;
+        /**
+         * 扫描时单次next的超时,毫秒
+         */
+        private int scannerTimeout = 60000;
+        /**
+         * 访问meta表的总超时,毫秒
+         */
+        private int metaOperationTimeout = 10000;
+        /**
+         * 最大重试次数
+         */
+        private int retries = 5;
+        /**
+         * 重试基础间隔,毫秒
+         */
+        private long pause = 100;
+        /**
+         * RegionServer调用队列满时的重试基础间隔,毫秒,应大于pause以减轻服务端压力
+         */
+        private long pauseServerOverloaded = 500;
+        /**
+         * 每个RegionServer上同时执行的请求数上限,超过后快速失败,避免一个慢RegionServer占满所有调用
+         */
+        private int perServerMaxConcurrent = 256;
+
+        private HedgedReadProperty hedgedRead = new HedgedReadProperty();
+
+        private void apply(Configuration config) {
+            setIfPositive(config, HConstants.HBASE_RPC_TIMEOUT_KEY, rpcTimeout);
+            setIfPositive(config, HConstants.HBASE_RPC_READ_TIMEOUT_KEY, readRpcTimeout);
+            setIfPositive(config, HConstants.HBASE_RPC_WRITE_TIMEOUT_KEY, writeRpcTimeout);
+            setIfPositive(config, HConstants.HBASE_CLIENT_OPERATION_TIMEOUT, operationTimeout);
+            setIfPositive(config, HConstants.HBASE_CLIENT_SCANNER_TIMEOUT_PERIOD, scannerTimeout);
+            setIfPositive(config, HConstants.HBASE_CLIENT_META_OPERATION_TIMEOUT, metaOperationTimeout);
+            setIfPositive(config, HConstants.HBASE_CLIENT_RETRIES_NUMBER, retries);
+            setIfPositive(config, HConstants.HBASE_CLIENT_PAUSE, pause);
+            setIfPositive(config, HConstants.HBASE_CLIENT_PAUSE_FOR_CQTBE, pauseServerOverloaded);
+            setIfPositive(config, HConstants.HBASE_CLIENT_PERSERVER_REQUESTS_THRESHOLD, perServerMaxConcurrent);
+            if (hedgedRead.enabled) {
+                config.setLong("hbase.client.primaryCallTimeout.get", hedgedRead.primaryCallTimeoutMicros);
+                config.setLong("hbase.client.primaryCallTimeout.multiget", hedgedRead.primaryCallTimeoutMicros);
+            }
+        }
+
+        private static void setIfPositive(Configuration config, String key, long value) {
+            if (value > 0)
+                config.setLong(key, value);
+        }
+    }
+
+    @Setter
+    private static class HedgedReadProperty {
+        /**
+         * 是否开启对冲读,需要表的Region副本数大于1
+         */
+        private boolean enabled = false;
+        /**
+         * 主Region超过该时间未返回时请求副本,微秒
+         */
+        private long primaryCallTimeoutMicros = 10000;
+        /**
+         * 开启对冲读的表(带命名空间),可容忍短暂读到旧数据的读多场景
+         */
+        private List<String> tables;
+    }
+
+    @Setter
+    private static class TableCacheProperty {
+        /**
+         * 表存在时的缓存时间,毫秒
+         */
+        private long ttl = 60000;
+        /**
+         * 表不存在时的缓存时间,毫秒
+         */
+        private long negativeTtl = 5000;
+        /**
+         * 最大缓存表数
+         */
+        private int maxSize = 1024;
+    }
+
+    @Setter
+    private static class RowCacheProperty {
+        private boolean enabled = false;
+        /**
+         * 缓存最大占用,字节
+         */
+        private long maxWeight = 64 * 1024 * 1024;
+        /**
+         * 默认过期时间,毫秒
+         */
+        private long ttl = 10000;
+        /**
+         * K: 表名(带命名空间),只有配置的表才会缓存
+         */
+        private Map<String, RowCacheTableProperty> tables = new HashMap<>();
+    }
+
+    @Setter
+    private static class RowCacheTableProperty {
+        /**
+         * 需要缓存的列族,为空时缓存该表的所有读取
+         */
+        private List<String> families;
+        /**
+         * 过期时间,毫秒,小于等于0时使用默认过期时间
+         */
+        private long ttl;
+    }
+
+    @Setter
+    private static class RowKeyProperty {
+        /**
+         * K: 表名(带命名空间),V: 该表的rowKey策略
+         */
+        private Map<String, RowKeyTableProperty> tables = new HashMap<>();
+    }
+
+    @Setter
+    private static class RowKeyTableProperty {
+        /**
+         * salt,hash,reversed-timestamp
+         */
+        private String strategy;
+        /**
+         * salt策略的桶数
+         */
+        private int buckets = 16;
+        /**
+         * hash策略的前缀长度
+         */
+        private int hashLength = 1;
+        /**
+         * reversed-timestamp策略的分隔符
+         */
+        private String separator = "_";
+
+        private RowKeyStrategy build() {
+            if ("salt".equals(strategy))
+                return RowKeyStrategy.salt(buckets);
+            if ("hash".equals(strategy))
+                return RowKeyStrategy.hash(hashLength);
+            if ("reversed-timestamp".equals(strategy))
+                return RowKeyStrategy.reversedTimestamp(separator);
+            throw new LabradorException(String.format("不支持的rowKey策略:%s", strategy));
+        }
+    }
+
+    @Setter
+    private static class CoalesceProperty {
+        /**
+         * 是否开启getRow,getColumnFamily,getColumn请求合并
+         */
+        private boolean enabled = false;
+        /**
+         * 合并窗口,微秒
+         */
+        private long windowMicros = 1000;
+        /**
+         * 单次multi-get的最大行数,达到后立即提交
+         */
+        private int maxBatchSize = 64;
+    }
+
+    @Setter
+    private static class MetricsProperty {
+        /**
+         * 慢调用日志阈值,毫秒,小于等于0时不记录
+         */
+        private long slowThreshold = 1000;
+        /**
+         * 是否发布百分位直方图,用于在Prometheus中计算p50,p99
+         */
+        private boolean histogram = true;
+    }
+
+    @Setter
+    private static class GuardProperty {
+        /**
+         * 是否开启按表的隔离舱和熔断
+         */
+        private boolean enabled = false;
+        /**
+         * 每张表的最大并发调用数,小于等于0时不限制
+         */
+        private int maxConcurrent = 64;
+        /**
+         * 获取并发许可的最大等待时间,毫秒
+         */
+        private long maxWait = 0;
+        /**
+         * 统计窗口的调用数
+         */
+        private int windowSize = 100;
+        /**
+         * 窗口内至少有这么多次调用才会熔断
+         */
+        private int minimumCalls = 20;
+        /**
+         * 失败率阈值,百分比
+         */
+        private int failureRateThreshold = 50;
+        /**
+         * 慢调用阈值,毫秒
+         */
+        private long slowCallThreshold = 2000;
+        /**
+         * 慢调用率阈值,百分比
+         */
+        private int slowCallRateThreshold = 80;
+        /**
+         * 熔断打开后到半开的时间,毫秒
+         */
+        private long openDuration = 10000;
+        /**
+         * 半开状态放行的探测调用数
+         */
+        private int halfOpenProbes = 5;
+        /**
+         * K: 表名(带命名空间),V: 该表的最大并发调用数,未配置的表使用maxConcurrent
+         */
+        private Map<String, Integer> tables = new HashMap<>();
+
+        private TableGuard build(String tableName) {
+            return new TableGuard(tableName, tables.getOrDefault(tableName, maxConcurrent), maxWait, windowSize, minimumCalls,
+                    failureRateThreshold, slowCallThreshold, slowCallRateThreshold, openDuration, halfOpenProbes);
+        }
+    }
+
+    @Setter
+    private static class HandleProperty {
+        /**
+         * 空闲Admin的最大缓存数
+         */
+        private int adminPoolSize = 4;
+    }
+
+    @Setter
+    private static class BatchProperty {
+        /**
+         * 批量操作每次提交的最大行数
+         */
+        private int chunkSize = 1000;
+    }
+
+    @Setter
+    private static class WriterProperty {
+        /**
+         * 写缓冲区大小,字节
+         */
+        private long writeBufferSize = 4 * 1024 * 1024;
+        /**
+         * 定时刷新间隔,毫秒
+         */
+        private long flushInterval = 1000;
+        /**
+         * 上次同步刷新完成后允许写入的最大字节数,超过后同步flush
+         */
+        private long maxInFlightBytes = 64 * 1024 * 1024;
+    }
+
+    @Setter
+    private static class CounterProperty {
+        /**
+         * 计数器缓冲定时提交间隔,毫秒
+         */
+        private long flushInterval = 1000;
+        /**
+         * 缓冲的计数器数上限,达到后同步提交
+         */
+        private int maxPendingCounters = 10000;
+    }
+
+    @Setter
+    private static class BulkLoadProperty {
+        /**
+         * 批量导入存放HFile的临时目录,RegionServer需要能访问,远程集群应使用hdfs://路径
+         */
+        private String stagingDir = System.getProperty("java.io.tmpdir") + "/labrador-bulkload";
+        /**
+         * 每段在内存中排序的最大数据量,字节
+         */
+        private long bufferSize = 128 * 1024 * 1024;
+    }
+
+    @Setter
+    private static class ParallelScanProperty {
+        /**
+         * 并行扫描线程数,所有并行扫描共享
+         */
+        private int threads = 8;
+        /**
+         * 每个分片预读的最大行数
+         */
+        private int queueCapacity = 1000;
+    }
+
+    @Setter
+    private static class IndexProperty {
+        /**
+         * K: 表名(带命名空间),V: 建立二级索引的列,格式为 列族:列名,索引表不存在时启动时创建
+         */
+        private Map<String, List<String>> tables = new HashMap<>();
+    }
+
+    @Setter
+    private static class ExecutionProperty {
+        /**
+         * 执行模式: platform,virtual;virtual需要JDK21及以上,不支持时使用platform
+         * virtual模式下并行扫描,批量操作的各批在虚拟线程中执行,Tomcat请求也在虚拟线程中处理
+         */
+        private HBaseExecutors.Mode mode = HBaseExecutors.Mode.PLATFORM;
+    }
+
+    @FunctionalInterface
+    private interface ResultMapper<T> {
+        T map(Result result) throws IOException;
+    }
+
+    /**
+     * 一次调用持有的表调用许可及主集群熔断许可,调用结束时按错误码释放
+     */
+    private static class CallPermits {
+        private TableGuard.Permit table;
+        private TableGuard.Permit route;
+        private boolean failed;
+
+        private void error(Throwable e) {
+            failed |= TableGuard.isFailure(ErrorCode.of(e));
+        }
+
+        private void release() {
+            if (table != null)
+                table.release(failed);
+            if (route != null)
+                route.release(failed);
+        }
     }
 
 }
@@ -0,0 +1,314 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 基于BufferedMutator的异步写入器,每张表一个,线程安全
+ * 写入先进入客户端缓冲区,缓冲区满时异步提交,到达刷新间隔或调用flush()时同步提交;
+ * 自上次同步提交完成以来写入的数据量(包含缓冲区满时已异步提交但未确认的部分)超过maxInFlightBytes时同步flush,
+ * 避免生产速度过快时未确认的写入无限增长
+ * 写入失败不会抛给调用方,而是回调FailureListener
+ * 写入的行在进入缓冲区时从热点行缓存失效,缓冲区提交前读取该行仍会读到并缓存旧值,直到缓存过期
+ *
+ * @author 一贫
+ * @date 2021/10/12
+ */
+@Slf4j
+public class HBaseWriter implements Closeable {
+
+    private final TableName tableName;
+
+    private final BufferedMutator mutator;
+
+    private final FailureListener failureListener;
+
+    private final RowKeyStrategy rowKeyStrategy;
+
+    private final RowCache rowCache;
+
+    private final long writeBufferSize;
+
+    private final long maxInFlightBytes;
+
+    /**
+     * 缓冲区中尚未提交的字节数,任意一次提交后清零
+     */
+    private final AtomicLong bufferedBytes = new AtomicLong();
+
+    /**
+     * 自上次同步提交完成以来写入的字节数
+     */
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    /**
+     * 定时刷新,由写入器自己调度以便刷新后清零计数;不定时刷新时为空
+     */
+    private final ScheduledExecutorService flushScheduler;
+
+    private final LongAdder mutatedRows = new LongAdder();
+
+    private final LongAdder failedRows = new LongAdder();
+
+    private final AtomicLong currentSecond = new AtomicLong(System.currentTimeMillis() / 1000);
+
+    private final LongAdder currentSecondRows = new LongAdder();
+
+    private volatile long lastSecondRows;
+
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    /**
+     * @param connection          共享的Connection
+     * @param tableName           表名
+     * @param writeBufferSize     写缓冲区大小,字节
+     * @param flushInterval       定时刷新间隔,毫秒,小于等于0时不定时刷新
+     * @param maxInFlightBytes    上次同步提交完成后允许写入的最大字节数,超过后同步flush,小于等于0时不限制
+     * @param failureListener     写入失败回调,为空时只记录日志
+     */
+    public HBaseWriter(Connection connection, TableName tableName, long writeBufferSize, long flushInterval,
+                       long maxInFlightBytes, FailureListener failureListener) throws IOException {
+        this(connection, tableName, writeBufferSize, flushInterval, maxInFlightBytes, failureListener, null);
+    }
+
+    /**
+     * @param rowKeyStrategy rowKey策略,put,deleteRow按策略转换rowKey;直接调用mutate时需要自行转换
+     */
+    public HBaseWriter(Connection connection, TableName tableName, long writeBufferSize, long flushInterval,
+                       long maxInFlightBytes, FailureListener failureListener, RowKeyStrategy rowKeyStrategy) throws IOException {
+        this(connection, tableName, writeBufferSize, flushInterval, maxInFlightBytes, failureListener, rowKeyStrategy, null);
+    }
+
+    /**
+     * @param rowCache 热点行缓存,不为空时写入的行在提交到缓冲区时失效
+     */
+    HBaseWriter(Connection connection, TableName tableName, long writeBufferSize, long flushInterval, long maxInFlightBytes,
+                FailureListener failureListener, RowKeyStrategy rowKeyStrategy, RowCache rowCache) throws IOException {
+        this.tableName = tableName;
+        this.rowKeyStrategy = rowKeyStrategy;
+        this.rowCache = rowCache;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.failureListener = failureListener != null ? failureListener : FailureListener.LOGGING;
+        BufferedMutatorParams params = new BufferedMutatorParams(tableName)
+                .writeBufferSize(writeBufferSize)
+                .listener(this::onException);
+        this.mutator = connection.getBufferedMutator(params);
+        this.writeBufferSize = mutator.getWriteBufferSize();
+        if (flushInterval > 0) {
+            flushScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "hbase-writer-flush-" + tableName.getNameAsString());
+                thread.setDaemon(true);
+                return thread;
+            });
+            flushScheduler.scheduleWithFixedDelay(this::periodicFlush, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+        } else {
+            flushScheduler = null;
+        }
+    }
+
+    /**
+     * 写入某个列
+     */
+    public void put(String rowKey, String columnFamily, String column, String data) {
+        Put put = new Put(rowBytes(rowKey));
+        put.addColumn(Bytes.toBytes(columnFamily), Bytes.toBytes(column), Bytes.toBytes(data));
+        mutate(put);
+    }
+
+    /**
+     * 写入某个列族的多个列
+     *
+     * @param keyValues K: column qualifier,V: data
+     */
+    public void put(String rowKey, String columnFamily, Map<String, String> keyValues) {
+        Put put = new Put(rowBytes(rowKey));
+        byte[] cfBytes = Bytes.toBytes(columnFamily);
+        keyValues.forEach((k, v) -> put.addColumn(cfBytes, Bytes.toBytes(k), Bytes.toBytes(v)));
+        mutate(put);
+    }
+
+    /**
+     * 删除某行
+     */
+    public void deleteRow(String rowKey) {
+        mutate(new Delete(rowBytes(rowKey)));
+    }
+
+    public void mutate(Mutation mutation) {
+        mutate(Collections.singletonList(mutation));
+    }
+
+    public void mutate(List<? extends Mutation> mutations) {
+        if (closed.get())
+            throw new LabradorException(String.format("表 %s 的写入器已关闭", tableName));
+        long bytes = 0;
+        for (Mutation mutation : mutations) {
+            bytes += mutation.heapSize();
+        }
+        try {
+            mutator.mutate(mutations);
+        } catch (IOException e) {
+            String msg = String.format("写入数据失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        }
+        recordRows(mutations.size());
+        if (rowCache != null) {
+            for (Mutation mutation : mutations) {
+                String storedKey = Bytes.toString(mutation.getRow());
+                rowCache.invalidate(tableName.getNameAsString(), rowKeyStrategy == null ? storedKey : rowKeyStrategy.decode(storedKey));
+            }
+        }
+        // 与BufferedMutator一致按heapSize累计,超过writeBufferSize时mutator已在mutate中异步提交缓冲区
+        long buffered = bufferedBytes.addAndGet(bytes);
+        if (buffered > writeBufferSize)
+            release(bufferedBytes, buffered);
+        long pending = inFlightBytes.addAndGet(bytes);
+        if (maxInFlightBytes > 0 && pending >= maxInFlightBytes)
+            flush();
+    }
+
+    /**
+     * 将缓冲区中的数据同步提交到HBase
+     */
+    public void flush() {
+        // flush期间并发写入的数据不一定被本次提交,只扣除开始时的计数
+        long buffered = bufferedBytes.get();
+        long pending = inFlightBytes.get();
+        try {
+            mutator.flush();
+        } catch (IOException e) {
+            String msg = String.format("刷新写缓冲区失败,table:%s", tableName);
+            log.error(msg, e);
+            throw new LabradorException(ErrorCode.of(e), msg);
+        }
+        release(bufferedBytes, buffered);
+        release(inFlightBytes, pending);
+    }
+
+    /**
+     * 提交缓冲区中剩余的数据并关闭
+     */
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true))
+            return;
+        if (flushScheduler != null)
+            flushScheduler.shutdown();
+        try {
+            mutator.close();
+        } catch (IOException e) {
+            log.error(String.format("关闭写入器失败,table:%s", tableName), e);
+        }
+        bufferedBytes.set(0);
+        inFlightBytes.set(0);
+    }
+
+    public TableName getTableName() {
+        return tableName;
+    }
+
+    /**
+     * 累计提交到缓冲区的行数
+     */
+    public long getMutatedCount() {
+        return mutatedRows.sum();
+    }
+
+    /**
+     * 累计写入失败的行数
+     */
+    public long getFailedCount() {
+        return failedRows.sum();
+    }
+
+    /**
+     * 缓冲区中尚未提交的字节数,按heapSize估算;手动,定时或缓冲区满触发提交后清零
+     */
+    public long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * 最近一个完整秒内提交到缓冲区的行数
+     */
+    public long getRowsPerSecond() {
+        long second = System.currentTimeMillis() / 1000;
+        long current = currentSecond.get();
+        if (second == current)
+            return lastSecondRows;
+        return second - current == 1 ? currentSecondRows.sum() : 0;
+    }
+
+    private byte[] rowBytes(String rowKey) {
+        return Bytes.toBytes(rowKeyStrategy == null ? rowKey : rowKeyStrategy.encode(rowKey));
+    }
+
+    private void periodicFlush() {
+        if (closed.get() || inFlightBytes.get() == 0)
+            return;
+        try {
+            flush();
+        } catch (Exception e) {
+            // flush中已记录日志,继续下一次定时刷新
+        }
+    }
+
+    private static void release(AtomicLong counter, long bytes) {
+        counter.accumulateAndGet(bytes, (current, released) -> Math.max(0, current - released));
+    }
+
+    private void recordRows(int rows) {
+        mutatedRows.add(rows);
+        long second = System.currentTimeMillis() / 1000;
+        long current = currentSecond.get();
+        if (second != current && currentSecond.compareAndSet(current, second)) {
+            long count = currentSecondRows.sumThenReset();
+            lastSecondRows = second - current == 1 ? count : 0;
+        }
+        currentSecondRows.add(rows);
+    }
+
+    private void onException(RetriesExhaustedWithDetailsException e, BufferedMutator mutator) {
+        int failed = e.getNumExceptions();
+        failedRows.add(failed);
+        log.warn("写入数据失败,table:{},失败数:{}", tableName, failed);
+        for (int i = 0; i < failed; i++) {
+            Row row = e.getRow(i);
+            try {
+                failureListener.onFailure(tableName, row instanceof Mutation ? (Mutation) row : null, e.getCause(i));
+            } catch (Exception ex) {
+                log.error("写入失败回调执行异常.", ex);
+            }
+        }
+    }
+
+    /**
+     * 写入失败回调,在BufferedMutator的flush线程中执行,不应有耗时操作
+     */
+    @FunctionalInterface
+    public interface FailureListener {
+
+        FailureListener LOGGING = (tableName, mutation, cause) ->
+                log.error(String.format("写入数据失败,table:%s,rowKey:%s", tableName,
+                        mutation == null ? null : Bytes.toString(mutation.getRow())), cause);
+
+        void onFailure(TableName tableName, Mutation mutation, Throwable cause);
+    }
+}
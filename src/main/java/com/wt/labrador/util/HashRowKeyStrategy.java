@@ -0,0 +1,42 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.MD5Hash;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按rowKey的MD5前length位十六进制字符加前缀,分布比取模更均匀
+ * 前缀为length位十六进制字符加"_",例如length为1时为"0_"~"f_"
+ *
+ * @author 一贫
+ * @date 2021/10/30
+ */
+class HashRowKeyStrategy extends BucketRowKeyStrategy {
+
+    private final int length;
+
+    HashRowKeyStrategy(int length) {
+        super(prefixes(length));
+        this.length = length;
+    }
+
+    @Override
+    String prefix(String rowKey) {
+        return MD5Hash.getMD5AsHex(Bytes.toBytes(rowKey)).substring(0, length) + "_";
+    }
+
+    private static List<String> prefixes(int length) {
+        if (length <= 0 || length > 4)
+            throw new LabradorException("hash前缀长度必须在1-4之间.");
+        int buckets = 1 << (4 * length);
+        String format = "%0" + length + "x_";
+        List<String> prefixes = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            prefixes.add(String.format(format, i));
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,353 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 二级索引,每个索引列一张索引表,与数据表在同一命名空间,表名为 {数据表}_idx_{列族}_{列名}
+ * 索引表rowKey为 列值 + 0x00 + 原始rowKey,列i:k的值为原始rowKey;按列值前缀扫描即可找到所有命中的行
+ * 写入时先写新的索引条目,再写数据,数据写入成功后删除被替换的旧条目:
+ * 任一步失败只会留下多余的条目,查询时回表校验列值,不会返回过期的命中
+ * 同一行的索引列被并发修改时可能短暂缺少条目,可通过重建索引修复
+ * HBaseUtil及AsyncHBaseClient的写入维护索引;HBaseWriter,批量导入不维护索引,写入后需要重建
+ * 计数器按8字节long存储,与按字符串查询的索引不兼容,索引列不能作为计数器累加
+ *
+ * @author 一贫
+ * @date 2021/11/11
+ */
+@Slf4j
+class IndexManager {
+
+    static final byte[] FAMILY = Bytes.toBytes("i");
+
+    static final byte[] QUALIFIER = Bytes.toBytes("k");
+
+    private static final byte SEPARATOR = 0;
+
+    private final HBaseHandleManager handleManager;
+
+    /**
+     * K: 数据表名(带命名空间),V: 该表的索引
+     */
+    private final Map<String, List<Index>> indexes = new ConcurrentHashMap<>();
+
+    IndexManager(HBaseHandleManager handleManager) {
+        this.handleManager = handleManager;
+    }
+
+    /**
+     * 创建索引定义,不注册
+     *
+     * @param tableName    数据表名(带命名空间)
+     * @param columnFamily 列族
+     * @param column       列名
+     */
+    static Index define(String tableName, String columnFamily, String column) {
+        return new Index(TableName.valueOf(tableName), columnFamily, column);
+    }
+
+    /**
+     * 注册后该表的写入开始维护索引,索引表需要已经存在
+     *
+     * @return 已存在时返回原有的索引
+     */
+    Index register(Index index) {
+        String tableName = index.dataTable.getNameAsString();
+        // 注册很少发生,每次替换为新的列表,写入时遍历不需要加锁
+        indexes.compute(tableName, (k, list) -> {
+            List<Index> updated = list == null ? new ArrayList<>() : new ArrayList<>(list);
+            if (updated.stream().noneMatch(i -> i.matches(index.familyName, index.qualifierName)))
+                updated.add(index);
+            return Collections.unmodifiableList(updated);
+        });
+        return find(tableName, index.familyName, index.qualifierName);
+    }
+
+    void unregister(String tableName, String columnFamily, String column) {
+        indexes.computeIfPresent(tableName, (k, list) -> {
+            List<Index> updated = new ArrayList<>(list);
+            updated.removeIf(i -> i.matches(columnFamily, column));
+            return updated.isEmpty() ? null : Collections.unmodifiableList(updated);
+        });
+    }
+
+    List<Index> get(String tableName) {
+        return indexes.getOrDefault(tableName, Collections.emptyList());
+    }
+
+    Index find(String tableName, String columnFamily, String column) {
+        for (Index index : get(tableName)) {
+            if (index.matches(columnFamily, column))
+                return index;
+        }
+        return null;
+    }
+
+    /**
+     * 索引列不能作为计数器累加
+     *
+     * @throws LabradorException 错误码为BAD_REQUEST
+     */
+    void checkNotIndexed(String tableName, String columnFamily, String column) {
+        if (find(tableName, columnFamily, column) != null)
+            throw new LabradorException(ErrorCode.BAD_REQUEST, String.format("表 %s 的列 %s:%s 有二级索引,不能作为计数器累加", tableName, columnFamily, column));
+    }
+
+    /**
+     * 计算一批写操作需要的索引修改,读取受影响的行中索引列的当前值
+     *
+     * @param tableName 数据表名(带命名空间)
+     * @param rowKeys   原始rowKey,与actions一一对应
+     * @param actions   Put,Delete或RowMutations,RowMutations中的操作按顺序生效
+     * @return 没有索引或没有修改索引列时返回null
+     */
+    IndexUpdate prepare(String tableName, List<String> rowKeys, List<? extends Row> actions) throws IOException {
+        List<Index> tableIndexes = indexes.get(tableName);
+        if (tableIndexes == null || tableIndexes.isEmpty())
+            return null;
+        List<Touched> touched = new ArrayList<>();
+        for (int i = 0; i < actions.size(); i++) {
+            Map<Index, byte[]> newValues = new LinkedHashMap<>();
+            for (Mutation mutation : mutationsOf(actions.get(i))) {
+                for (Index index : tableIndexes) {
+                    if (mutation instanceof Put) {
+                        byte[] value = lastValue((Put) mutation, index);
+                        if (value != null)
+                            newValues.put(index, value);
+                    } else if (mutation instanceof Delete && deletes((Delete) mutation, index)) {
+                        newValues.put(index, null);
+                    }
+                }
+            }
+            if (!newValues.isEmpty())
+                touched.add(new Touched(rowKeys.get(i), actions.get(i).getRow(), newValues));
+        }
+        if (touched.isEmpty())
+            return null;
+        List<Get> gets = new ArrayList<>(touched.size());
+        for (Touched t : touched) {
+            Get get = new Get(t.row);
+            t.newValues.keySet().forEach(index -> get.addColumn(index.family, index.qualifier));
+            gets.add(get);
+        }
+        Result[] current;
+        try (Table table = handleManager.getTable(TableName.valueOf(tableName))) {
+            current = table.get(gets);
+        }
+        IndexUpdate update = new IndexUpdate();
+        for (int i = 0; i < touched.size(); i++) {
+            Touched t = touched.get(i);
+            for (Map.Entry<Index, byte[]> entry : t.newValues.entrySet()) {
+                Index index = entry.getKey();
+                byte[] oldValue = current[i].getValue(index.family, index.qualifier);
+                byte[] newValue = entry.getValue();
+                // 值未变时也重写条目,避免并发修改时被其他写入删除
+                if (newValue != null)
+                    update.puts.computeIfAbsent(index.indexTable, k -> new ArrayList<>()).add(index.entry(newValue, t.rowKey));
+                if (oldValue != null && !Arrays.equals(oldValue, newValue)) {
+                    update.deletes.computeIfAbsent(t.rowKey, k -> new ArrayList<>())
+                            .add(new StaleEntry(index.indexTable, new Delete(index.indexRow(oldValue, t.rowKey))));
+                }
+            }
+        }
+        return update;
+    }
+
+    private static List<Mutation> mutationsOf(Row action) {
+        if (action instanceof RowMutations)
+            return ((RowMutations) action).getMutations();
+        if (action instanceof Put || action instanceof Delete)
+            return Collections.singletonList((Mutation) action);
+        return Collections.emptyList();
+    }
+
+    private static byte[] lastValue(Put put, Index index) {
+        List<Cell> cells = put.get(index.family, index.qualifier);
+        return cells.isEmpty() ? null : CellUtil.cloneValue(cells.get(cells.size() - 1));
+    }
+
+    /**
+     * 删除整行,删除索引列所在列族或删除索引列本身
+     */
+    private static boolean deletes(Delete delete, Index index) {
+        if (delete.getFamilyCellMap().isEmpty())
+            return true;
+        List<Cell> cells = delete.getFamilyCellMap().get(index.family);
+        if (cells == null)
+            return false;
+        for (Cell cell : cells) {
+            if (cell.getType() == Cell.Type.DeleteFamily || cell.getType() == Cell.Type.DeleteFamilyVersion
+                    || CellUtil.matchingQualifier(cell, index.qualifier))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * 一个索引列
+     */
+    static final class Index {
+
+        private final TableName dataTable;
+
+        private final String familyName;
+
+        private final String qualifierName;
+
+        private final byte[] family;
+
+        private final byte[] qualifier;
+
+        private final TableName indexTable;
+
+        private Index(TableName dataTable, String familyName, String qualifierName) {
+            this.dataTable = dataTable;
+            this.familyName = familyName;
+            this.qualifierName = qualifierName;
+            this.family = Bytes.toBytes(familyName);
+            this.qualifier = Bytes.toBytes(qualifierName);
+            String name = dataTable.getQualifierAsString() + "_idx_" + familyName + "_" + qualifierName;
+            try {
+                this.indexTable = TableName.valueOf(dataTable.getNamespaceAsString(), name);
+            } catch (IllegalArgumentException e) {
+                throw new LabradorException(ErrorCode.BAD_REQUEST, String.format("索引表名 %s 不合法,列族和列名只能包含字母,数字,_,-,.", name));
+            }
+        }
+
+        TableName getDataTable() {
+            return dataTable;
+        }
+
+        TableName getIndexTable() {
+            return indexTable;
+        }
+
+        byte[] getFamily() {
+            return family;
+        }
+
+        byte[] getQualifier() {
+            return qualifier;
+        }
+
+        boolean matches(String columnFamily, String column) {
+            return familyName.equals(columnFamily) && qualifierName.equals(column);
+        }
+
+        /**
+         * 某个列值的所有索引条目的rowKey前缀
+         */
+        byte[] prefix(byte[] value) {
+            return Bytes.add(value, new byte[]{SEPARATOR});
+        }
+
+        byte[] indexRow(byte[] value, String rowKey) {
+            return Bytes.add(value, new byte[]{SEPARATOR}, Bytes.toBytes(rowKey));
+        }
+
+        Put entry(byte[] value, String rowKey) {
+            return new Put(indexRow(value, rowKey)).addColumn(FAMILY, QUALIFIER, Bytes.toBytes(rowKey));
+        }
+
+        @Override
+        public String toString() {
+            return dataTable.getNameAsString() + ":" + familyName + ":" + qualifierName;
+        }
+    }
+
+    /**
+     * 一批写操作对应的索引修改
+     */
+    class IndexUpdate {
+
+        /**
+         * K: 索引表,V: 新条目
+         */
+        private final Map<TableName, List<Put>> puts = new LinkedHashMap<>();
+
+        /**
+         * K: 原始rowKey,V: 该行被替换的旧条目
+         */
+        private final Map<String, List<StaleEntry>> deletes = new LinkedHashMap<>();
+
+        /**
+         * 写数据前调用,写入新条目,失败时不应再写数据
+         */
+        void beforeWrite() throws IOException, InterruptedException {
+            for (Map.Entry<TableName, List<Put>> entry : puts.entrySet()) {
+                try (Table table = handleManager.getTable(entry.getKey())) {
+                    table.batch(entry.getValue(), new Object[entry.getValue().size()]);
+                }
+            }
+        }
+
+        /**
+         * 数据写入成功后调用,删除旧条目;失败只记录日志,残留的条目在查询时被过滤
+         *
+         * @param failedRowKeys 数据写入失败的行,这些行的旧条目仍然有效,不删除
+         */
+        void afterWrite(Set<String> failedRowKeys) {
+            Map<TableName, List<Delete>> byTable = new LinkedHashMap<>();
+            deletes.forEach((rowKey, entries) -> {
+                if (failedRowKeys.contains(rowKey))
+                    return;
+                entries.forEach(e -> byTable.computeIfAbsent(e.indexTable, k -> new ArrayList<>()).add(e.delete));
+            });
+            for (Map.Entry<TableName, List<Delete>> entry : byTable.entrySet()) {
+                try (Table table = handleManager.getTable(entry.getKey())) {
+                    table.batch(entry.getValue(), new Object[entry.getValue().size()]);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    log.warn("删除旧索引条目时被中断,index:{}", entry.getKey());
+                    return;
+                } catch (Exception e) {
+                    log.warn("删除旧索引条目失败,index:{},条目数:{}", entry.getKey(), entry.getValue().size(), e);
+                }
+            }
+        }
+
+        void afterWrite() {
+            afterWrite(Collections.emptySet());
+        }
+    }
+
+    private static final class Touched {
+
+        private final String rowKey;
+
+        private final byte[] row;
+
+        /**
+         * K: 被修改的索引列,V: 修改后的值,为空表示被删除
+         */
+        private final Map<Index, byte[]> newValues;
+
+        private Touched(String rowKey, byte[] row, Map<Index, byte[]> newValues) {
+            this.rowKey = rowKey;
+            this.row = row;
+            this.newValues = newValues;
+        }
+    }
+
+    private static final class StaleEntry {
+
+        private final TableName indexTable;
+
+        private final Delete delete;
+
+        private StaleEntry(TableName indexTable, Delete delete) {
+            this.indexTable = indexTable;
+            this.delete = delete;
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.wt.labrador.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 同时扫描多个rowKey范围,按原始rowKey归并为一个有序结果
+ * 各范围的scanner在线程池中并行打开,之后开启异步预取,消费当前行时各scanner在后台并行拉取下一批数据
+ * 每个范围只在内存中保留一批数据,不需要额外的队列和常驻线程
+ * 返回的Result中rowKey为实际存储的rowKey,原始rowKey通过RowKeyStrategy.decode获取
+ *
+ * @author 一贫
+ * @date 2021/10/30
+ */
+@Slf4j
+class MergedScanner implements ResultScanner {
+
+    private final RowKeyStrategy strategy;
+
+    private final List<Table> tables = new ArrayList<>();
+
+    private final List<ResultScanner> scanners = new ArrayList<>();
+
+    private final PriorityQueue<Head> heads;
+
+    /**
+     * @param handleManager 句柄管理
+     * @param executor      打开scanner的线程池
+     * @param tableName     表名
+     * @param template      扫描参数,startRow,stopRow会被各范围覆盖
+     * @param strategy      rowKey策略
+     * @param startRow      原始startRow
+     * @param stopRow       原始stopRow
+     */
+    MergedScanner(HBaseHandleManager handleManager, ExecutorService executor, TableName tableName, Scan template,
+                  RowKeyStrategy strategy, String startRow, String stopRow) throws IOException {
+        this.strategy = strategy;
+        List<String[]> ranges = strategy.scanRanges(startRow, stopRow);
+        this.heads = new PriorityQueue<>(Math.max(ranges.size(), 1));
+        try {
+            List<Future<ResultScanner>> futures = new ArrayList<>(ranges.size());
+            for (String[] range : ranges) {
+                Scan scan = new Scan(template);
+                scan.withStartRow(range[0] == null ? new byte[0] : Bytes.toBytes(range[0]));
+                scan.withStopRow(range[1] == null ? new byte[0] : Bytes.toBytes(range[1]));
+                scan.setAsyncPrefetch(true);
+                Table table = handleManager.getTable(tableName);
+                tables.add(table);
+                futures.add(executor.submit(() -> table.getScanner(scan)));
+            }
+            for (Future<ResultScanner> future : futures) {
+                scanners.add(future.get());
+            }
+            for (ResultScanner scanner : scanners) {
+                advance(scanner);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            throw new InterruptedIOException("打开分桶scanner时被中断.");
+        } catch (ExecutionException e) {
+            close();
+            throw e.getCause() instanceof IOException ? (IOException) e.getCause() : new IOException(e.getCause());
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 所有范围中原始rowKey最小的一行,扫描结束时返回null
+     */
+    @Override
+    public Result next() throws IOException {
+        Head head = heads.poll();
+        if (head == null)
+            return null;
+        advance(head.scanner);
+        return head.result;
+    }
+
+    @Override
+    public boolean renewLease() {
+        boolean renewed = true;
+        for (ResultScanner scanner : scanners) {
+            renewed &= scanner.renewLease();
+        }
+        return renewed;
+    }
+
+    @Override
+    public ScanMetrics getScanMetrics() {
+        return null;
+    }
+
+    @Override
+    public void close() {
+        scanners.forEach(ResultScanner::close);
+        for (Table table : tables) {
+            try {
+                table.close();
+            } catch (IOException e) {
+                log.warn("关闭Table失败.", e);
+            }
+        }
+    }
+
+    private void advance(ResultScanner scanner) throws IOException {
+        Result result = scanner.next();
+        if (result != null)
+            heads.add(new Head(result, Bytes.toBytes(strategy.decode(Bytes.toString(result.getRow()))), scanner));
+    }
+
+    private static class Head implements Comparable<Head> {
+        private final Result result;
+        private final byte[] rowKey;
+        private final ResultScanner scanner;
+
+        private Head(Result result, byte[] rowKey, ResultScanner scanner) {
+            this.result = result;
+            this.rowKey = rowKey;
+            this.scanner = scanner;
+        }
+
+        @Override
+        public int compareTo(Head o) {
+            return Bytes.compareTo(rowKey, o.rowKey);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.wt.labrador.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 按Region边界拆分扫描范围,在线程池中并发扫描各分片
+ * 每个分片的结果先进入有界队列,队列满时扫描线程阻塞等待消费,避免消费慢时在内存中堆积
+ * ordered=true时按rowKey顺序消费(逐个分片消费,后续分片最多预读queueCapacity行);ordered=false时按到达顺序消费
+ *
+ * @author 一贫
+ * @date 2021/10/18
+ */
+@Slf4j
+class ParallelScanner {
+
+    private static final Object END = new Object();
+
+    private final Connection connection;
+
+    private final HBaseHandleManager handleManager;
+
+    private final HBaseMetrics metrics;
+
+    private final ExecutorService executor;
+
+    private final int queueCapacity;
+
+    ParallelScanner(Connection connection, HBaseHandleManager handleManager, HBaseMetrics metrics, ExecutorService executor, int queueCapacity) {
+        this.connection = connection;
+        this.handleManager = handleManager;
+        this.metrics = metrics;
+        this.executor = executor;
+        this.queueCapacity = Math.max(queueCapacity, 1);
+    }
+
+    void scan(TableName tableName, Scan template, boolean ordered, Consumer<HBaseRow> consumer) throws IOException, InterruptedException {
+        scan(tableName, template, ordered, HBaseUtil::toRow, consumer);
+    }
+
+    /**
+     * @param mapper 在扫描线程中将Result转换为消费的对象,不能返回null
+     */
+    <T> void scan(TableName tableName, Scan template, boolean ordered, Function<Result, T> mapper, Consumer<T> consumer) throws IOException, InterruptedException {
+        List<Scan> splits = split(tableName, template);
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        List<BlockingQueue<Object>> queues = new ArrayList<>();
+        List<Future<?>> futures = new ArrayList<>(splits.size());
+        BlockingQueue<Object> shared = ordered ? null : new ArrayBlockingQueue<>(queueCapacity);
+        try {
+            for (Scan split : splits) {
+                BlockingQueue<Object> queue = ordered ? new ArrayBlockingQueue<>(queueCapacity) : shared;
+                if (ordered)
+                    queues.add(queue);
+                futures.add(executor.submit(() -> produce(tableName, split, mapper, queue, cancelled)));
+            }
+            if (ordered) {
+                for (BlockingQueue<Object> queue : queues) {
+                    drain(queue, 1, consumer);
+                }
+            } else if (!splits.isEmpty()) {
+                drain(shared, splits.size(), consumer);
+            }
+        } finally {
+            cancelled.set(true);
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * 将扫描范围与各Region的[startKey, endKey)求交集,空数组表示无边界
+     */
+    List<Scan> split(TableName tableName, Scan template) throws IOException {
+        byte[] startRow = template.getStartRow();
+        byte[] stopRow = template.getStopRow();
+        Pair<byte[][], byte[][]> keys;
+        try (RegionLocator locator = connection.getRegionLocator(tableName)) {
+            keys = locator.getStartEndKeys();
+        }
+        List<byte[][]> ranges = new ArrayList<>();
+        for (int i = 0; i < keys.getFirst().length; i++) {
+            byte[] regionStart = keys.getFirst()[i];
+            byte[] regionEnd = keys.getSecond()[i];
+            byte[] splitStart = Bytes.compareTo(regionStart, startRow) > 0 ? regionStart : startRow;
+            byte[] splitStop;
+            if (stopRow.length == 0)
+                splitStop = regionEnd;
+            else if (regionEnd.length == 0)
+                splitStop = stopRow;
+            else
+                splitStop = Bytes.compareTo(regionEnd, stopRow) < 0 ? regionEnd : stopRow;
+            if (splitStop.length > 0 && Bytes.compareTo(splitStart, splitStop) >= 0)
+                continue;
+            ranges.add(new byte[][]{splitStart, splitStop});
+        }
+        ranges.sort((a, b) -> Bytes.compareTo(a[0], b[0]));
+        List<Scan> splits = new ArrayList<>(ranges.size());
+        for (byte[][] range : ranges) {
+            Scan scan = new Scan(template);
+            scan.withStartRow(range[0]).withStopRow(range[1]);
+            splits.add(scan);
+        }
+        log.debug("表 {} 并行扫描拆分为 {} 个分片.", tableName, splits.size());
+        return splits;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void drain(BlockingQueue<Object> queue, int producers, Consumer<T> consumer) throws IOException, InterruptedException {
+        int finished = 0;
+        while (finished < producers) {
+            Object item = queue.take();
+            if (item == END)
+                finished++;
+            else if (item instanceof Throwable)
+                throw new IOException("分片扫描失败.", (Throwable) item);
+            else
+                consumer.accept((T) item);
+        }
+    }
+
+    private <T> void produce(TableName tableName, Scan scan, Function<Result, T> mapper, BlockingQueue<Object> queue, AtomicBoolean cancelled) {
+        Object tail = END;
+        String name = tableName.getNameAsString();
+        try (Table table = handleManager.getTable(tableName);
+             ResultScanner rs = table.getScanner(scan)) {
+            for (Result result : rs) {
+                metrics.recordRead(name, result);
+                if (!offer(queue, mapper.apply(result), cancelled))
+                    return;
+            }
+        } catch (Throwable e) {
+            tail = e;
+        }
+        offer(queue, tail, cancelled);
+    }
+
+    private boolean offer(BlockingQueue<Object> queue, Object item, AtomicBoolean cancelled) {
+        try {
+            while (!cancelled.get()) {
+                if (queue.offer(item, 100, TimeUnit.MILLISECONDS))
+                    return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+}
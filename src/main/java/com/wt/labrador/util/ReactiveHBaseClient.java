@@ -0,0 +1,219 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.AdvancedScanResultConsumer;
+import org.apache.hadoop.hbase.client.AsyncTable;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.reactivestreams.Publisher;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 基于Project Reactor的响应式客户端,用于WebFlux
+ * 扫描基于AsyncTable.scan和AdvancedScanResultConsumer: 下游没有需求时挂起RegionServer上的scanner,request(n)时恢复,
+ * 内存中最多保留一批(scan caching)数据,下游慢时不会堆积
+ * HBase在RPC线程中回调onNext,这里通过publishOn切换到独立的线程池再发给下游
+ *
+ * @author 一贫
+ * @date 2021/11/9
+ */
+@Component
+@Slf4j
+public class ReactiveHBaseClient {
+
+    private final HBaseUtil hBaseUtil;
+
+    private final AsyncHBaseClient asyncHBaseClient;
+
+    private final Scheduler scheduler = Schedulers.newBoundedElastic(Schedulers.DEFAULT_BOUNDED_ELASTIC_SIZE,
+            Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "hbase-reactive");
+
+    public ReactiveHBaseClient(HBaseUtil hBaseUtil, AsyncHBaseClient asyncHBaseClient) {
+        this.hBaseUtil = hBaseUtil;
+        this.asyncHBaseClient = asyncHBaseClient;
+    }
+
+    /**
+     * 获取某行数据,行不存在时为空
+     *
+     * @param tableName
+     * @param rowKey
+     * @param namespace
+     * @param timeout   为空时使用默认超时时间
+     * @return Mono<HBaseRow>
+     */
+    public Mono<HBaseRow> getRow(String tableName, String rowKey, String namespace, Duration timeout) {
+        return Mono.fromFuture(() -> asyncHBaseClient.getRow(tableName, rowKey, namespace, timeout))
+                .filter(families -> !families.isEmpty())
+                .map(families -> new HBaseRow(rowKey, families));
+    }
+
+    public Mono<HBaseRow> getRow(String tableName, String rowKey, String namespace) {
+        return getRow(tableName, rowKey, namespace, null);
+    }
+
+    public Mono<HBaseRow> getRow(String tableName, String rowKey) {
+        return getRow(tableName, rowKey, null, null);
+    }
+
+    /**
+     * 扫描数据,按下游需求分批从RegionServer拉取,取消订阅时关闭scanner
+     * 配置了rowKey策略时各分桶分别扫描,按原始rowKey归并
+     *
+     * @param tableName
+     * @param startRow
+     * @param stopRow
+     * @param columnFamilies 为空时扫描所有列族
+     * @param options        扫描参数,可为空,caching决定每批的行数
+     * @param namespace
+     * @return Flux<HBaseRow>
+     */
+    public Flux<HBaseRow> scan(String tableName, String startRow, String stopRow, String[] columnFamilies, ScanOptions options, String namespace) {
+        String fullName = HBaseUtil.buildTableNameWithNameSpace(tableName, namespace);
+        return Flux.defer(() -> {
+            TableName tabName = TableName.valueOf(fullName);
+            RowKeyStrategy strategy = hBaseUtil.getRowKeyStrategy(fullName);
+            Scan scan = HBaseUtil.buildScan(startRow, stopRow, options);
+            if (columnFamilies != null) {
+                for (String columnFamily : columnFamilies) {
+                    scan.addFamily(Bytes.toBytes(columnFamily));
+                }
+            }
+            if (strategy == null)
+                return scan(fullName, tabName, scan, null);
+            List<Flux<HBaseRow>> buckets = new ArrayList<>();
+            try {
+                for (String[] range : strategy.scanRanges(startRow, stopRow)) {
+                    Scan rangeScan = new Scan(scan)
+                            .withStartRow(range[0] == null ? HConstants.EMPTY_START_ROW : Bytes.toBytes(range[0]))
+                            .withStopRow(range[1] == null ? HConstants.EMPTY_END_ROW : Bytes.toBytes(range[1]));
+                    buckets.add(scan(fullName, tabName, rangeScan, strategy));
+                }
+            } catch (IOException e) {
+                return Flux.error(new LabradorException(ErrorCode.of(e), String.format("扫描数据失败,table:%s", fullName)));
+            }
+            Comparator<HBaseRow> order = (a, b) -> Bytes.BYTES_COMPARATOR.compare(Bytes.toBytes(a.getRowKey()), Bytes.toBytes(b.getRowKey()));
+            return Flux.mergeComparing(scan.isReversed() ? order.reversed() : order, toArray(buckets));
+        }).publishOn(scheduler);
+    }
+
+    public Flux<HBaseRow> scan(String tableName, String startRow, String stopRow, String[] columnFamilies, String namespace) {
+        return scan(tableName, startRow, stopRow, columnFamilies, null, namespace);
+    }
+
+    public Flux<HBaseRow> scan(String tableName, String startRow, String stopRow, String[] columnFamilies) {
+        return scan(tableName, startRow, stopRow, columnFamilies, null, null);
+    }
+
+    private Flux<HBaseRow> scan(String fullName, TableName tabName, Scan scan, RowKeyStrategy strategy) {
+        return Flux.create(sink -> {
+            BackPressureConsumer consumer = new BackPressureConsumer(fullName, sink, strategy);
+            sink.onRequest(n -> consumer.resume());
+            sink.onCancel(consumer::cancel);
+            AsyncTable<AdvancedScanResultConsumer> table = asyncHBaseClient.getConnection().getTable(tabName);
+            table.scan(scan, consumer);
+        }, FluxSink.OverflowStrategy.BUFFER);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static <T> Publisher<T>[] toArray(List<? extends Publisher<T>> sources) {
+        return sources.toArray(new Publisher[0]);
+    }
+
+    @PreDestroy
+    private void destroy() {
+        scheduler.dispose();
+    }
+
+    /**
+     * 每批数据发出后若下游没有剩余需求则挂起scanner;suspend,terminate只能在回调中调用,resume可在任意线程调用
+     */
+    private class BackPressureConsumer implements AdvancedScanResultConsumer {
+
+        private final String tableName;
+
+        private final FluxSink<HBaseRow> sink;
+
+        private final RowKeyStrategy strategy;
+
+        private final AtomicReference<ScanResumer> resumer = new AtomicReference<>();
+
+        private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+        private BackPressureConsumer(String tableName, FluxSink<HBaseRow> sink, RowKeyStrategy strategy) {
+            this.tableName = tableName;
+            this.sink = sink;
+            this.strategy = strategy;
+        }
+
+        @Override
+        public void onNext(Result[] results, ScanController controller) {
+            for (Result result : results) {
+                String storedKey = Bytes.toString(result.getRow());
+                sink.next(HBaseUtil.toRow(result, strategy == null ? storedKey : strategy.decode(storedKey)));
+            }
+            control(controller);
+        }
+
+        @Override
+        public void onHeartbeat(ScanController controller) {
+            control(controller);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            sink.error(asyncHBaseClient.translate(tableName, error, () -> String.format("扫描数据失败,table:%s", tableName)));
+        }
+
+        @Override
+        public void onComplete() {
+            sink.complete();
+        }
+
+        private void control(ScanController controller) {
+            if (cancelled.get()) {
+                controller.terminate();
+                return;
+            }
+            if (sink.requestedFromDownstream() > 0)
+                return;
+            resumer.set(controller.suspend());
+            // 挂起期间下游可能已经request,此时onRequest看不到resumer,需要在这里补一次
+            if (sink.requestedFromDownstream() > 0 || cancelled.get())
+                resume();
+        }
+
+        private void resume() {
+            ScanResumer current = resumer.getAndSet(null);
+            if (current != null)
+                current.resume();
+        }
+
+        /**
+         * 恢复后在下一次回调中终止scanner
+         */
+        private void cancel() {
+            cancelled.set(true);
+            resume();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 反转时间戳,rowKey格式为"业务前缀+分隔符+毫秒时间戳",存储时时间戳替换为Long.MAX_VALUE-时间戳并补零到19位
+ * 同一业务前缀下最新的数据排在最前面,扫描只有一个范围,结果按时间倒序返回
+ *
+ * @author 一贫
+ * @date 2021/10/30
+ */
+class ReversedTimestampRowKeyStrategy implements RowKeyStrategy {
+
+    private final String separator;
+
+    ReversedTimestampRowKeyStrategy(String separator) {
+        if (StringUtils.isEmpty(separator))
+            throw new LabradorException("反转时间戳策略的分隔符不能为空.");
+        this.separator = separator;
+    }
+
+    @Override
+    public String encode(String rowKey) {
+        int index = timestampIndex(rowKey);
+        return rowKey.substring(0, index) + reverse(rowKey, index);
+    }
+
+    @Override
+    public String decode(String storedKey) {
+        int index = timestampIndex(storedKey);
+        return storedKey.substring(0, index) + (Long.MAX_VALUE - parse(storedKey, index));
+    }
+
+    /**
+     * 原始范围[start, stop)对应存储范围(encode(stop), encode(start)],转换为左闭右开时在两端各追加一个\0
+     * 需要同时指定startRow和stopRow且业务前缀相同
+     */
+    @Override
+    public List<String[]> scanRanges(String startRow, String stopRow) {
+        if (StringUtils.isBlank(startRow) && StringUtils.isBlank(stopRow))
+            return Collections.singletonList(new String[]{null, null});
+        if (StringUtils.isBlank(startRow) || StringUtils.isBlank(stopRow))
+            throw new LabradorException("反转时间戳策略扫描时需要同时指定startRow和stopRow.");
+        int startIndex = timestampIndex(startRow);
+        int stopIndex = timestampIndex(stopRow);
+        if (!startRow.substring(0, startIndex).equals(stopRow.substring(0, stopIndex)))
+            throw new LabradorException("反转时间戳策略扫描时startRow和stopRow的业务前缀必须相同.");
+        return Collections.singletonList(new String[]{encode(stopRow) + '\0', encode(startRow) + '\0'});
+    }
+
+    private int timestampIndex(String rowKey) {
+        int index = rowKey.lastIndexOf(separator);
+        return index < 0 ? 0 : index + separator.length();
+    }
+
+    private static String reverse(String rowKey, int index) {
+        return String.format("%019d", Long.MAX_VALUE - parse(rowKey, index));
+    }
+
+    private static long parse(String rowKey, int index) {
+        try {
+            return Long.parseLong(rowKey.substring(index));
+        } catch (NumberFormatException e) {
+            throw new LabradorException(String.format("rowKey %s 不是以时间戳结尾", rowKey));
+        }
+    }
+}
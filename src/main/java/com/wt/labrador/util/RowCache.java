@@ -0,0 +1,238 @@
+package com.wt.labrador.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import lombok.EqualsAndHashCode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点行本地缓存,基于Caffeine(W-TinyLFU),按估算的内存占用限制容量,按表配置过期时间
+ * 缓存以行为单位,同一行的getRow,getColumnFamily,getColumn结果存放在同一个缓存项中,写入或删除该行时整行失效
+ * HBaseUtil,AsyncHBaseClient,计数器缓冲的写入在成功后失效;HBaseWriter在写入进入缓冲区时失效,提交前的读取可能重新缓存旧值
+ * 批量导入后清空整个缓存;绕过本项目直接写入HBase的数据只能等待缓存过期
+ * 缓存返回的Map不可修改
+ *
+ * @author 一贫
+ * @date 2021/10/25
+ */
+public class RowCache {
+
+    /**
+     * 每个缓存项的固定开销估算,字节
+     */
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final Cache<CacheKey, RowEntry> cache;
+
+    private final Map<String, TableRule> rules;
+
+    /**
+     * 每次失效都会递增,加载前后不一致说明期间有写入,加载结果不再放入缓存
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxWeight 缓存最大占用,字节
+     * @param rules     K: 表名(带命名空间),V: 该表的缓存规则;未配置的表不缓存
+     */
+    public RowCache(long maxWeight, Map<String, TableRule> rules) {
+        this.rules = rules;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxWeight)
+                .weigher((CacheKey key, RowEntry entry) -> entry.weight)
+                .expireAfter(new Expiry<CacheKey, RowEntry>() {
+                    @Override
+                    public long expireAfterCreate(CacheKey key, RowEntry entry, long currentTime) {
+                        return entry.ttlNanos;
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(CacheKey key, RowEntry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(CacheKey key, RowEntry entry, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * 获取某个读取结果在缓存中的位置,表或列族未配置缓存时返回null
+     *
+     * @param tableName 表名(带命名空间)
+     * @param rowKey
+     * @param family    为空表示读取整行
+     * @param subKey    同一行内区分不同读取方式的key
+     * @return Slot
+     */
+    Slot slot(String tableName, String rowKey, String family, String subKey) {
+        TableRule rule = rules.get(tableName);
+        if (rule == null || !rule.accept(family))
+            return null;
+        return new Slot(new CacheKey(tableName, rowKey), subKey, rule.ttlNanos, generation.get());
+    }
+
+    /**
+     * 使某行缓存失效
+     *
+     * @param tableName 表名(带命名空间)
+     * @param rowKey
+     * @return void
+     */
+    public void invalidate(String tableName, String rowKey) {
+        if (!rules.containsKey(tableName))
+            return;
+        generation.incrementAndGet();
+        cache.invalidate(new CacheKey(tableName, rowKey));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 1.0 : (double) hit / total;
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * 估算字符串占用,字节
+     */
+    static int weigh(String value) {
+        return value == null ? 0 : 40 + value.length() * 2;
+    }
+
+    @SuppressWarnings("unchecked")
+    static int weigh(Map<String, ?> map) {
+        int weight = 48;
+        for (Map.Entry<String, ?> entry : map.entrySet()) {
+            weight += 32 + weigh(entry.getKey());
+            Object value = entry.getValue();
+            if (value instanceof String)
+                weight += weigh((String) value);
+            else if (value instanceof Map)
+                weight += weigh((Map<String, ?>) value);
+        }
+        return weight;
+    }
+
+    class Slot {
+        private final CacheKey key;
+        private final String subKey;
+        private final long ttlNanos;
+        private final long generationAtCreate;
+
+        private Slot(CacheKey key, String subKey, long ttlNanos, long generationAtCreate) {
+            this.key = key;
+            this.subKey = subKey;
+            this.ttlNanos = ttlNanos;
+            this.generationAtCreate = generationAtCreate;
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> T get() {
+            RowEntry entry = cache.getIfPresent(key);
+            Object value = entry == null ? null : entry.values.get(subKey);
+            if (value == null)
+                misses.increment();
+            else
+                hits.increment();
+            return (T) value;
+        }
+
+        /**
+         * value为空或加载期间该行已失效时不缓存
+         */
+        void put(Object value, int weight) {
+            if (value == null || generation.get() != generationAtCreate)
+                return;
+            cache.asMap().compute(key, (k, old) -> old == null
+                    ? new RowEntry(Collections.singletonMap(subKey, value), ENTRY_OVERHEAD + weight, ttlNanos)
+                    : old.with(subKey, value, weight));
+        }
+    }
+
+    public static class TableRule {
+        private final Set<String> families;
+        private final long ttlNanos;
+
+        /**
+         * @param families 需要缓存的列族,为空时缓存所有读取(包括整行读取)
+         * @param ttl      过期时间,毫秒
+         */
+        public TableRule(Set<String> families, long ttl) {
+            this.families = families == null ? Collections.emptySet() : families;
+            this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttl);
+        }
+
+        private boolean accept(String family) {
+            if (families.isEmpty())
+                return true;
+            return family != null && families.contains(family);
+        }
+    }
+
+    @EqualsAndHashCode
+    private static class CacheKey {
+        private final String tableName;
+        private final String rowKey;
+
+        private CacheKey(String tableName, String rowKey) {
+            this.tableName = tableName;
+            this.rowKey = rowKey;
+        }
+    }
+
+    private static class RowEntry {
+        private final Map<String, Object> values;
+        private final int weight;
+        private final long ttlNanos;
+
+        private RowEntry(Map<String, Object> values, int weight, long ttlNanos) {
+            this.values = values;
+            this.weight = weight;
+            this.ttlNanos = ttlNanos;
+        }
+
+        private RowEntry with(String subKey, Object value, int valueWeight) {
+            Map<String, Object> copy = new HashMap<>(values);
+            Object previous = copy.put(subKey, value);
+            int newWeight = previous == null ? weight + valueWeight : weight;
+            return new RowEntry(copy, newWeight, ttlNanos);
+        }
+    }
+}
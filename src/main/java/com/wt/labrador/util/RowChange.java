@@ -0,0 +1,81 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RowMutations;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单行的多列修改,由mutateRow,checkAndMutate在一次RPC中原子提交
+ * 例: RowChange.create().put("info", "status", "PAID").delete("info", "lockOwner")
+ *
+ * @author 一贫
+ * @date 2021/11/2
+ */
+public class RowChange {
+
+    private final List<String[]> puts = new ArrayList<>();
+
+    private final List<String[]> deletes = new ArrayList<>();
+
+    private final List<String> deletedFamilies = new ArrayList<>();
+
+    public static RowChange create() {
+        return new RowChange();
+    }
+
+    public RowChange put(String columnFamily, String column, String data) {
+        puts.add(new String[]{columnFamily, column, data});
+        return this;
+    }
+
+    /**
+     * 删除某列的所有版本
+     */
+    public RowChange delete(String columnFamily, String column) {
+        deletes.add(new String[]{columnFamily, column});
+        return this;
+    }
+
+    public RowChange deleteFamily(String columnFamily) {
+        deletedFamilies.add(columnFamily);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return puts.isEmpty() && deletes.isEmpty() && deletedFamilies.isEmpty();
+    }
+
+    /**
+     * @param row 实际存储的rowKey
+     */
+    RowMutations build(byte[] row) throws IOException {
+        if (isEmpty())
+            throw new LabradorException("行修改至少要包含1个操作.");
+        List<Mutation> mutations = new ArrayList<>(2);
+        if (!puts.isEmpty()) {
+            Put put = new Put(row);
+            for (String[] cell : puts) {
+                put.addColumn(Bytes.toBytes(cell[0]), Bytes.toBytes(cell[1]), Bytes.toBytes(cell[2]));
+            }
+            mutations.add(put);
+        }
+        if (!deletes.isEmpty() || !deletedFamilies.isEmpty()) {
+            Delete delete = new Delete(row);
+            for (String[] cell : deletes) {
+                delete.addColumns(Bytes.toBytes(cell[0]), Bytes.toBytes(cell[1]));
+            }
+            for (String family : deletedFamilies) {
+                delete.addFamily(Bytes.toBytes(family));
+            }
+            mutations.add(delete);
+        }
+        return RowMutations.of(mutations);
+    }
+}
@@ -0,0 +1,71 @@
+package com.wt.labrador.util;
+
+import java.util.List;
+
+/**
+ * rowKey转换策略,用于打散顺序写入的rowKey,避免所有写入集中在同一个Region
+ * 配置了策略的表,HBaseUtil的写入及按rowKey读取会自动转换rowKey,扫描时按策略拆分为多个范围并行扫描,再按原始rowKey顺序归并
+ * 返回给调用方的rowKey均为转换前的原始rowKey
+ *
+ * @author 一贫
+ * @date 2021/10/30
+ */
+public interface RowKeyStrategy {
+
+    /**
+     * 原始rowKey转换为实际存储的rowKey
+     *
+     * @param rowKey 原始rowKey
+     * @return String
+     */
+    String encode(String rowKey);
+
+    /**
+     * 实际存储的rowKey还原为原始rowKey
+     *
+     * @param storedKey 实际存储的rowKey
+     * @return String
+     */
+    String decode(String storedKey);
+
+    /**
+     * 原始rowKey范围[startRow, stopRow)对应的实际存储范围,每个元素为{startRow(包含), stopRow(不包含)},为空表示无边界
+     * 返回多个范围时,每个范围内的数据需要按原始rowKey有序
+     *
+     * @param startRow 为空表示从表头开始
+     * @param stopRow  为空表示扫描到表尾
+     * @return List<String[]>
+     */
+    List<String[]> scanRanges(String startRow, String stopRow);
+
+    /**
+     * 按取模分桶加前缀,前缀为"桶号_",适用于顺序递增的rowKey
+     *
+     * @param buckets 桶数,建议与Region数一致,建表后不能修改
+     * @return RowKeyStrategy
+     */
+    static RowKeyStrategy salt(int buckets) {
+        return new SaltRowKeyStrategy(buckets);
+    }
+
+    /**
+     * 按MD5前缀分桶,前缀为MD5的前length位十六进制字符加"_"
+     *
+     * @param length 前缀长度,1-4,桶数为16的length次方
+     * @return RowKeyStrategy
+     */
+    static RowKeyStrategy hash(int length) {
+        return new HashRowKeyStrategy(length);
+    }
+
+    /**
+     * 反转时间戳,rowKey格式为"业务前缀+separator+毫秒时间戳",存储时时间戳替换为Long.MAX_VALUE-时间戳(19位补零)
+     * 同一前缀下最新的数据排在最前面,扫描结果按时间倒序返回
+     *
+     * @param separator 业务前缀与时间戳之间的分隔符,取rowKey中最后一个分隔符之后的部分作为时间戳
+     * @return RowKeyStrategy
+     */
+    static RowKeyStrategy reversedTimestamp(String separator) {
+        return new ReversedTimestampRowKeyStrategy(separator);
+    }
+}
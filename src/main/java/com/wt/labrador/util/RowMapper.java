@@ -0,0 +1,15 @@
+package com.wt.labrador.util;
+
+import org.apache.hadoop.hbase.client.Result;
+
+/**
+ * 将一行数据直接转换为业务对象,配合CellView读取可避免中间Map及多余的字节复制
+ *
+ * @author 一贫
+ * @date 2021/10/21
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    T mapRow(Result result);
+}
@@ -0,0 +1,39 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按rowKey的hashCode对桶数取模加前缀,顺序递增的rowKey会轮流落在各个桶中
+ * 前缀为补零后的桶号加"_",例如16个桶时为"00_"~"15_"
+ *
+ * @author 一贫
+ * @date 2021/10/30
+ */
+class SaltRowKeyStrategy extends BucketRowKeyStrategy {
+
+    private final int buckets;
+
+    SaltRowKeyStrategy(int buckets) {
+        super(prefixes(buckets));
+        this.buckets = buckets;
+    }
+
+    @Override
+    String prefix(String rowKey) {
+        return getPrefixes().get(Math.floorMod(rowKey.hashCode(), buckets));
+    }
+
+    private static List<String> prefixes(int buckets) {
+        if (buckets <= 0 || buckets > 1000)
+            throw new LabradorException("salt桶数必须在1-1000之间.");
+        String format = "%0" + String.valueOf(buckets - 1).length() + "d_";
+        List<String> prefixes = new ArrayList<>(buckets);
+        for (int i = 0; i < buckets; i++) {
+            prefixes.add(String.format(format, i));
+        }
+        return prefixes;
+    }
+}
@@ -0,0 +1,133 @@
+package com.wt.labrador.util;
+
+import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.filter.*;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 服务端过滤器构造工具,通过ScanOptions.filter()传入扫描方法,过滤在RegionServer上执行
+ * 例: ScanFilters.and(ScanFilters.rowPrefix("user_"), ScanFilters.columnValue("info", "age", CompareOperator.GREATER_OR_EQUAL, "18"))
+ *
+ * @author 一贫
+ * @date 2021/10/20
+ */
+public final class ScanFilters {
+
+    private ScanFilters() {
+    }
+
+    /**
+     * rowKey前缀匹配,建议同时把startRow设置为该前缀,避免从表头开始扫描
+     *
+     * @param prefix
+     * @return Filter
+     */
+    public static Filter rowPrefix(String prefix) {
+        return new PrefixFilter(Bytes.toBytes(prefix));
+    }
+
+    /**
+     * rowKey模糊匹配,模板中wildcard所在位置可以是任意字节,其余位置必须相同,模板长度与rowKey长度一致
+     * 例: fuzzyRow('?', "????_20211020") 匹配任意4字节用户id加固定日期的rowKey
+     *
+     * @param wildcard  通配字符
+     * @param templates 一个或多个模板,满足任意一个即可
+     * @return Filter
+     */
+    public static Filter fuzzyRow(char wildcard, String... templates) {
+        List<Pair<byte[], byte[]>> fuzzyKeys = new ArrayList<>(templates.length);
+        for (String template : templates) {
+            byte[] key = Bytes.toBytes(template);
+            byte[] mask = new byte[key.length];
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] == (byte) wildcard) {
+                    key[i] = 0;
+                    mask[i] = 1;
+                }
+            }
+            fuzzyKeys.add(new Pair<>(key, mask));
+        }
+        return new FuzzyRowFilter(fuzzyKeys);
+    }
+
+    /**
+     * 列名前缀匹配
+     *
+     * @param prefix
+     * @return Filter
+     */
+    public static Filter qualifierPrefix(String prefix) {
+        return new ColumnPrefixFilter(Bytes.toBytes(prefix));
+    }
+
+    /**
+     * 按某一列的值过滤整行,不包含该列的行会被过滤掉
+     * 如果扫描时指定了列族或列,需要包含该列,否则所有行都会被过滤
+     *
+     * @param columnFamily
+     * @param column
+     * @param operator
+     * @param value
+     * @return Filter
+     */
+    public static Filter columnValue(String columnFamily, String column, CompareOperator operator, String value) {
+        SingleColumnValueFilter filter = new SingleColumnValueFilter(Bytes.toBytes(columnFamily), Bytes.toBytes(column),
+                operator, Bytes.toBytes(value));
+        filter.setFilterIfMissing(true);
+        filter.setLatestVersionOnly(true);
+        return filter;
+    }
+
+    /**
+     * 只返回rowKey和列名,不返回值
+     *
+     * @return Filter
+     */
+    public static Filter keyOnly() {
+        return new KeyOnlyFilter();
+    }
+
+    /**
+     * 每行只返回第一个单元格,常用于统计行数或只需要rowKey的场景
+     *
+     * @return Filter
+     */
+    public static Filter firstKeyOnly() {
+        return new FirstKeyOnlyFilter();
+    }
+
+    /**
+     * 只返回指定时间戳的单元格,时间戳范围请使用ScanOptions.timeRange()
+     *
+     * @param timestamps
+     * @return Filter
+     */
+    public static Filter timestamps(Long... timestamps) {
+        return new TimestampsFilter(Arrays.asList(timestamps));
+    }
+
+    /**
+     * 所有条件都满足
+     *
+     * @param filters
+     * @return Filter
+     */
+    public static Filter and(Filter... filters) {
+        return new FilterList(FilterList.Operator.MUST_PASS_ALL, filters);
+    }
+
+    /**
+     * 满足任意一个条件
+     *
+     * @param filters
+     * @return Filter
+     */
+    public static Filter or(Filter... filters) {
+        return new FilterList(FilterList.Operator.MUST_PASS_ONE, filters);
+    }
+}
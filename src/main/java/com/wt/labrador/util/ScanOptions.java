@@ -0,0 +1,108 @@
+package com.wt.labrador.util;
+
+import lombok.Getter;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.Filter;
+
+import java.io.IOException;
+
+/**
+ * 扫描参数,用于控制单次RPC返回的数据量,大范围扫描时保证内存占用稳定
+ *
+ * @author 一贫
+ * @date 2021/10/15
+ */
+@Getter
+public class ScanOptions {
+
+    /**
+     * 每次RPC返回的行数,小于等于0时使用hbase.client.scanner.caching
+     */
+    private int caching;
+
+    /**
+     * 每次RPC返回的最大字节数,小于等于0时使用hbase.client.scanner.max.result.size
+     */
+    private long maxResultSize;
+
+    /**
+     * 每个Result最多包含的列数,小于等于0时不限制;设置后一行可能被拆分为多个Result
+     */
+    private int batch;
+
+    /**
+     * 是否将读取的数据块放入BlockCache,全表导出时建议关闭
+     */
+    private boolean cacheBlocks = true;
+
+    /**
+     * 服务端过滤器,可通过ScanFilters构造
+     */
+    private Filter filter;
+
+    /**
+     * 时间戳范围[minTimestamp, maxTimestamp),maxTimestamp小于等于0时不限制
+     */
+    private long minTimestamp;
+
+    private long maxTimestamp;
+
+    public static ScanOptions create() {
+        return new ScanOptions();
+    }
+
+    public ScanOptions caching(int caching) {
+        this.caching = caching;
+        return this;
+    }
+
+    public ScanOptions maxResultSize(long maxResultSize) {
+        this.maxResultSize = maxResultSize;
+        return this;
+    }
+
+    public ScanOptions batch(int batch) {
+        this.batch = batch;
+        return this;
+    }
+
+    public ScanOptions cacheBlocks(boolean cacheBlocks) {
+        this.cacheBlocks = cacheBlocks;
+        return this;
+    }
+
+    public ScanOptions filter(Filter filter) {
+        this.filter = filter;
+        return this;
+    }
+
+    /**
+     * 只返回时间戳在[minTimestamp, maxTimestamp)内的单元格
+     */
+    public ScanOptions timeRange(long minTimestamp, long maxTimestamp) {
+        if (minTimestamp < 0 || maxTimestamp < minTimestamp)
+            throw new IllegalArgumentException(String.format("无效的时间戳范围[%d, %d)", minTimestamp, maxTimestamp));
+        this.minTimestamp = minTimestamp;
+        this.maxTimestamp = maxTimestamp;
+        return this;
+    }
+
+    void applyTo(Scan scan) {
+        if (caching > 0)
+            scan.setCaching(caching);
+        if (maxResultSize > 0)
+            scan.setMaxResultSize(maxResultSize);
+        if (batch > 0)
+            scan.setBatch(batch);
+        scan.setCacheBlocks(cacheBlocks);
+        if (filter != null)
+            scan.setFilter(filter);
+        if (maxTimestamp > 0) {
+            try {
+                scan.setTimeRange(minTimestamp, maxTimestamp);
+            } catch (IOException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+}
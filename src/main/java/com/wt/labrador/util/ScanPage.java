@@ -0,0 +1,33 @@
+package com.wt.labrador.util;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.List;
+
+/**
+ * 分页扫描结果
+ *
+ * @author 一贫
+ * @date 2021/10/19
+ */
+@Getter
+@ToString
+public class ScanPage {
+
+    private final List<HBaseRow> rows;
+
+    /**
+     * 下一页的游标,没有更多数据时为空
+     */
+    private final String nextCursor;
+
+    public ScanPage(List<HBaseRow> rows, String nextCursor) {
+        this.rows = rows;
+        this.nextCursor = nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
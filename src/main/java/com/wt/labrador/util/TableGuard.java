@@ -0,0 +1,310 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 单张表的隔离舱和熔断器,线程安全
+ * 隔离舱: 限制同时执行的调用数,超过后等待maxWait,仍拿不到许可时快速失败,避免慢表占满调用方的线程池
+ * 熔断器: 统计最近windowSize次调用,失败率或慢调用率超过阈值时打开,打开期间所有调用快速失败;
+ * 经过openDuration后进入半开状态,放行halfOpenProbes个探测调用,全部成功则关闭,任一失败或变慢则重新打开
+ *
+ * @author 一贫
+ * @date 2021/11/6
+ */
+public class TableGuard {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private static final byte OK = 0;
+
+    private static final byte FAILED = 1;
+
+    private static final byte SLOW = 2;
+
+    private final String tableName;
+
+    private final Semaphore bulkhead;
+
+    private final int maxConcurrent;
+
+    private final long maxWaitMillis;
+
+    private final int minimumCalls;
+
+    private final int failureRateThreshold;
+
+    private final long slowCallNanos;
+
+    private final int slowCallRateThreshold;
+
+    private final long openNanos;
+
+    private final int halfOpenProbes;
+
+    /**
+     * 最近windowSize次调用的结果,环形覆盖
+     */
+    private final byte[] window;
+
+    private int windowIndex;
+
+    private int calls;
+
+    private int failures;
+
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+
+    private long openedAt;
+
+    private int probesIssued;
+
+    private int probeSuccesses;
+
+    private final LongAdder circuitRejected = new LongAdder();
+
+    private final LongAdder bulkheadRejected = new LongAdder();
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * @param tableName             表名(带命名空间)
+     * @param maxConcurrent         最大并发调用数,小于等于0时不限制
+     * @param maxWait               获取并发许可的最大等待时间,毫秒,小于等于0时不等待
+     * @param windowSize            统计窗口的调用数
+     * @param minimumCalls          窗口内至少有这么多次调用才会计算失败率
+     * @param failureRateThreshold  失败率阈值,百分比,小于等于0时不按失败率熔断
+     * @param slowCallThreshold     慢调用阈值,毫秒,小于等于0时不统计慢调用
+     * @param slowCallRateThreshold 慢调用率阈值,百分比,小于等于0时不按慢调用率熔断
+     * @param openDuration          熔断打开后到半开的时间,毫秒
+     * @param halfOpenProbes        半开状态放行的探测调用数
+     */
+    public TableGuard(String tableName, int maxConcurrent, long maxWait, int windowSize, int minimumCalls, int failureRateThreshold,
+                      long slowCallThreshold, int slowCallRateThreshold, long openDuration, int halfOpenProbes) {
+        this.tableName = tableName;
+        this.maxConcurrent = maxConcurrent;
+        this.bulkhead = maxConcurrent > 0 ? new Semaphore(maxConcurrent) : null;
+        this.maxWaitMillis = maxWait;
+        this.window = new byte[Math.max(windowSize, 1)];
+        this.minimumCalls = Math.max(Math.min(minimumCalls, window.length), 1);
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = TimeUnit.MILLISECONDS.toNanos(slowCallThreshold);
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openNanos = TimeUnit.MILLISECONDS.toNanos(openDuration);
+        this.halfOpenProbes = Math.max(halfOpenProbes, 1);
+    }
+
+    /**
+     * 获取调用许可,调用结束后必须调用Permit.release()
+     *
+     * @return Permit
+     * @throws LabradorException 熔断打开时错误码为CIRCUIT_OPEN,并发已满时错误码为BULKHEAD_FULL
+     */
+    public Permit acquire() {
+        boolean probe = enter();
+        if (bulkhead != null && !tryAcquireBulkhead()) {
+            if (probe)
+                cancelProbe();
+            bulkheadRejected.increment();
+            throw new LabradorException(ErrorCode.BULKHEAD_FULL, String.format("表 %s 的并发调用数已达上限 %d", tableName, maxConcurrent));
+        }
+        return new Permit(probe);
+    }
+
+    /**
+     * 是否计为熔断器的失败调用,只统计超时,不可用,繁忙及重试用尽;参数错误,表不存在等与表的健康状况无关
+     *
+     * @param code LabradorException的错误码
+     */
+    public static boolean isFailure(String code) {
+        return ErrorCode.TIMEOUT.equals(code) || ErrorCode.UNAVAILABLE.equals(code)
+                || ErrorCode.SERVER_BUSY.equals(code) || ErrorCode.RETRIES_EXHAUSTED.equals(code);
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 当前窗口的失败率,百分比
+     */
+    public int getFailureRate() {
+        lock.lock();
+        try {
+            return calls == 0 ? 0 : failures * 100 / calls;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前窗口的慢调用率,百分比
+     */
+    public int getSlowCallRate() {
+        lock.lock();
+        try {
+            return calls == 0 ? 0 : slowCalls * 100 / calls;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 正在执行的调用数,不限制并发时返回-1
+     */
+    public int getActiveCalls() {
+        return bulkhead == null ? -1 : maxConcurrent - bulkhead.availablePermits();
+    }
+
+    public long getCircuitRejectedCount() {
+        return circuitRejected.sum();
+    }
+
+    public long getBulkheadRejectedCount() {
+        return bulkheadRejected.sum();
+    }
+
+    /**
+     * @return 是否为半开状态的探测调用
+     */
+    private boolean enter() {
+        // 关闭状态不加锁,state为volatile
+        if (state == State.CLOSED)
+            return false;
+        lock.lock();
+        try {
+            if (state == State.CLOSED)
+                return false;
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < openNanos)
+                    throw circuitOpen();
+                state = State.HALF_OPEN;
+                probesIssued = 0;
+                probeSuccesses = 0;
+            }
+            if (probesIssued >= halfOpenProbes)
+                throw circuitOpen();
+            probesIssued++;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private LabradorException circuitOpen() {
+        circuitRejected.increment();
+        return new LabradorException(ErrorCode.CIRCUIT_OPEN, String.format("表 %s 已熔断", tableName));
+    }
+
+    private void cancelProbe() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && probesIssued > 0)
+                probesIssued--;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryAcquireBulkhead() {
+        if (maxWaitMillis <= 0)
+            return bulkhead.tryAcquire();
+        try {
+            return bulkhead.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void onComplete(boolean probe, boolean failed, long elapsedNanos) {
+        lock.lock();
+        try {
+            record(probe, failed, elapsedNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean probe, boolean failed, long elapsedNanos) {
+        byte outcome = failed ? FAILED : slowCallNanos > 0 && elapsedNanos >= slowCallNanos ? SLOW : OK;
+        if (state == State.HALF_OPEN) {
+            // 打开前已放行的调用在半开状态结束时不参与判断
+            if (!probe)
+                return;
+            if (outcome != OK)
+                open();
+            else if (++probeSuccesses >= halfOpenProbes)
+                close();
+            return;
+        }
+        if (state == State.OPEN)
+            return;
+        if (calls == window.length) {
+            byte evicted = window[windowIndex];
+            if (evicted == FAILED)
+                failures--;
+            else if (evicted == SLOW)
+                slowCalls--;
+        } else {
+            calls++;
+        }
+        window[windowIndex] = outcome;
+        windowIndex = (windowIndex + 1) % window.length;
+        if (outcome == FAILED)
+            failures++;
+        else if (outcome == SLOW)
+            slowCalls++;
+        if (calls >= minimumCalls && ((failureRateThreshold > 0 && failures * 100 >= failureRateThreshold * calls)
+                || (slowCallNanos > 0 && slowCallRateThreshold > 0 && slowCalls * 100 >= slowCallRateThreshold * calls)))
+            open();
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        calls = 0;
+        failures = 0;
+        slowCalls = 0;
+        windowIndex = 0;
+    }
+
+    public class Permit {
+
+        private final boolean probe;
+
+        private final long startNanos = System.nanoTime();
+
+        private Permit(boolean probe) {
+            this.probe = probe;
+        }
+
+        /**
+         * 释放许可并记录调用结果
+         *
+         * @param failed 调用是否失败
+         */
+        public void release(boolean failed) {
+            if (bulkhead != null)
+                bulkhead.release();
+            onComplete(probe, failed, System.nanoTime() - startNanos);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.wt.labrador.util;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 各表的熔断状态,通过/actuator/hbaseguards查看,/actuator/hbaseguards/{table}查看单张表
+ *
+ * @author 一贫
+ * @date 2021/11/6
+ */
+@Component
+@Endpoint(id = "hbaseguards")
+public class TableGuardEndpoint {
+
+    private final HBaseUtil hBaseUtil;
+
+    public TableGuardEndpoint(HBaseUtil hBaseUtil) {
+        this.hBaseUtil = hBaseUtil;
+    }
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> guards() {
+        Map<String, Map<String, Object>> guards = new TreeMap<>();
+        TableGuards tableGuards = hBaseUtil.getTableGuards();
+        if (tableGuards != null)
+            tableGuards.getAll().forEach(guard -> guards.put(guard.getTableName(), describe(guard)));
+        return guards;
+    }
+
+    @ReadOperation
+    public Map<String, Object> guard(@Selector String table) {
+        TableGuards tableGuards = hBaseUtil.getTableGuards();
+        TableGuard guard = tableGuards == null ? null : tableGuards.find(table);
+        return guard == null ? null : describe(guard);
+    }
+
+    private static Map<String, Object> describe(TableGuard guard) {
+        Map<String, Object> state = new LinkedHashMap<>();
+        state.put("state", guard.getState());
+        state.put("failureRate", guard.getFailureRate());
+        state.put("slowCallRate", guard.getSlowCallRate());
+        state.put("activeCalls", guard.getActiveCalls());
+        state.put("circuitRejected", guard.getCircuitRejectedCount());
+        state.put("bulkheadRejected", guard.getBulkheadRejectedCount());
+        return state;
+    }
+}
@@ -0,0 +1,43 @@
+package com.wt.labrador.util;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * 所有表的隔离舱和熔断器,首次访问某张表时按factory创建
+ *
+ * @author 一贫
+ * @date 2021/11/6
+ */
+public class TableGuards {
+
+    /**
+     * K: 表名(带命名空间)
+     */
+    private final Map<String, TableGuard> guards = new ConcurrentHashMap<>();
+
+    private final Function<String, TableGuard> factory;
+
+    public TableGuards(Function<String, TableGuard> factory) {
+        this.factory = factory;
+    }
+
+    public TableGuard get(String tableName) {
+        TableGuard guard = guards.get(tableName);
+        return guard != null ? guard : guards.computeIfAbsent(tableName, factory);
+    }
+
+    /**
+     * 不存在时返回null,不会创建
+     */
+    public TableGuard find(String tableName) {
+        return guards.get(tableName);
+    }
+
+    public Collection<TableGuard> getAll() {
+        return Collections.unmodifiableCollection(guards.values());
+    }
+}
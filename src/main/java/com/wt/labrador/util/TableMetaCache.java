@@ -0,0 +1,140 @@
+package com.wt.labrador.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 表元数据缓存,避免每次读写都通过Admin请求HMaster确认表是否存在
+ * 表存在时缓存ttl毫秒,表不存在时(负缓存)缓存negativeTtl毫秒,条目数达到上限时优先淘汰已过期的条目,再淘汰最早过期的条目
+ *
+ * @author 一贫
+ * @date 2021/10/8
+ */
+@Slf4j
+public class TableMetaCache {
+
+    private final Map<TableName, Entry> entries = new ConcurrentHashMap<>();
+
+    private final long ttl;
+
+    private final long negativeTtl;
+
+    private final int maxSize;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param ttl         表存在时的缓存时间,毫秒
+     * @param negativeTtl 表不存在时的缓存时间,毫秒
+     * @param maxSize     最大缓存条目数
+     */
+    public TableMetaCache(long ttl, long negativeTtl, int maxSize) {
+        if (maxSize <= 0)
+            throw new IllegalArgumentException("maxSize必须大于0.");
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * 判断表是否存在,缓存未命中或已过期时通过loader加载
+     *
+     * @param tableName 表名
+     * @param loader    缓存未命中时的加载方式,一般为Admin.tableExists
+     * @return boolean
+     */
+    public boolean tableExists(TableName tableName, Loader loader) throws IOException {
+        long now = System.currentTimeMillis();
+        Entry entry = entries.get(tableName);
+        if (entry != null && entry.expireAt > now) {
+            hits.increment();
+            return entry.exists;
+        }
+        misses.increment();
+        boolean exists = loader.load(tableName);
+        if (entry == null && entries.size() >= maxSize)
+            evict(now);
+        entries.put(tableName, new Entry(exists, now + (exists ? ttl : negativeTtl)));
+        return exists;
+    }
+
+    /**
+     * 使某张表的缓存失效
+     *
+     * @param tableName 表名
+     * @return void
+     */
+    public void invalidate(TableName tableName) {
+        if (entries.remove(tableName) != null)
+            log.debug("表 {} 元数据缓存已失效.", tableName);
+    }
+
+    /**
+     * 使某个命名空间下所有表的缓存失效
+     *
+     * @param namespace 命名空间
+     * @return void
+     */
+    public void invalidateNamespace(String namespace) {
+        entries.keySet().removeIf(tableName -> tableName.getNamespaceAsString().equals(namespace));
+    }
+
+    /**
+     * 清空缓存
+     *
+     * @return void
+     */
+    public void invalidateAll() {
+        entries.clear();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evict(long now) {
+        entries.values().removeIf(entry -> entry.expireAt <= now);
+        if (entries.size() < maxSize)
+            return;
+        TableName eldest = null;
+        long eldestExpireAt = Long.MAX_VALUE;
+        for (Map.Entry<TableName, Entry> e : entries.entrySet()) {
+            if (e.getValue().expireAt < eldestExpireAt) {
+                eldest = e.getKey();
+                eldestExpireAt = e.getValue().expireAt;
+            }
+        }
+        if (eldest != null)
+            entries.remove(eldest);
+    }
+
+    @FunctionalInterface
+    public interface Loader {
+        boolean load(TableName tableName) throws IOException;
+    }
+
+    private static class Entry {
+        private final boolean exists;
+        private final long expireAt;
+
+        private Entry(boolean exists, long expireAt) {
+            this.exists = exists;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.wt.labrador.util;
+
+import com.wt.labrador.exception.LabradorException;
+import lombok.Getter;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.TableDescriptorBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * 建表参数,包括列族参数及预分区
+ * 预分区后新表的写入从一开始就分散在多个Region上,不需要等待Region自动分裂
+ * 例: TableSpec.create().family(FamilySpec.of("info").compression(Compression.Algorithm.LZ4)).uniformSplits("0", "9", 10)
+ *
+ * @author 一贫
+ * @date 2021/10/31
+ */
+@Getter
+public class TableSpec {
+
+    private final List<FamilySpec> families = new ArrayList<>();
+
+    /**
+     * 预分区的分割点,n个分割点对应n+1个Region,为空时只有一个Region
+     */
+    private final TreeSet<byte[]> splitKeys = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+
+    /**
+     * Region副本数,大于1时可开启对冲读,小于等于1时不创建副本
+     */
+    private int regionReplication;
+
+    public static TableSpec create() {
+        return new TableSpec();
+    }
+
+    public TableSpec family(FamilySpec family) {
+        families.add(family);
+        return this;
+    }
+
+    /**
+     * 添加使用默认参数的列族
+     */
+    public TableSpec family(String name) {
+        return family(FamilySpec.of(name));
+    }
+
+    /**
+     * 设置Region副本数,副本只读,由主Region异步同步数据
+     */
+    public TableSpec regionReplication(int regionReplication) {
+        this.regionReplication = regionReplication;
+        return this;
+    }
+
+    /**
+     * 指定分割点
+     */
+    public TableSpec splitKeys(String... keys) {
+        for (String key : keys) {
+            if (key != null && !key.isEmpty())
+                splitKeys.add(Bytes.toBytes(key));
+        }
+        return this;
+    }
+
+    /**
+     * 在[startKey, endKey]之间按字节均匀切分为regions个Region,适用于rowKey在范围内均匀分布的场景,例如十六进制或数字前缀
+     *
+     * @param startKey 第一个Region的结束位置会大于startKey
+     * @param endKey   最后一个Region的开始位置会小于endKey
+     * @param regions  Region数,至少为2
+     * @return TableSpec
+     */
+    public TableSpec uniformSplits(String startKey, String endKey, int regions) {
+        if (regions < 2)
+            throw new LabradorException("预分区Region数至少为2.");
+        byte[][] keys = Bytes.split(Bytes.toBytes(startKey), Bytes.toBytes(endKey), regions - 1);
+        if (keys == null)
+            throw new LabradorException(String.format("无法在 %s 和 %s 之间切分 %d 个Region", startKey, endKey, regions));
+        // Bytes.split的结果包含首尾两个端点
+        for (int i = 1; i < keys.length - 1; i++) {
+            splitKeys.add(keys[i]);
+        }
+        return this;
+    }
+
+    /**
+     * 按样本rowKey的分布切分,每个Region包含数量大致相同的样本,适用于已有历史数据的迁移建表
+     *
+     * @param sampleKeys 样本rowKey,不需要有序
+     * @param regions    Region数,至少为2
+     * @return TableSpec
+     */
+    public TableSpec sampledSplits(Collection<String> sampleKeys, int regions) {
+        if (regions < 2)
+            throw new LabradorException("预分区Region数至少为2.");
+        TreeSet<byte[]> sorted = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+        for (String key : sampleKeys) {
+            sorted.add(Bytes.toBytes(key));
+        }
+        List<byte[]> samples = new ArrayList<>(sorted);
+        if (samples.size() < regions)
+            throw new LabradorException(String.format("样本数 %d 少于Region数 %d", samples.size(), regions));
+        for (int i = 1; i < regions; i++) {
+            splitKeys.add(samples.get((int) ((long) i * samples.size() / regions)));
+        }
+        return this;
+    }
+
+    /**
+     * 按rowKey策略的分桶切分,每个桶一个Region
+     *
+     * @param strategy 需要为salt或hash策略
+     * @return TableSpec
+     */
+    public TableSpec bucketSplits(RowKeyStrategy strategy) {
+        if (!(strategy instanceof BucketRowKeyStrategy))
+            throw new LabradorException("只有salt,hash策略支持按分桶预分区.");
+        List<String> prefixes = ((BucketRowKeyStrategy) strategy).getPrefixes();
+        // 第一个桶从表头开始,不需要分割点
+        for (int i = 1; i < prefixes.size(); i++) {
+            splitKeys.add(Bytes.toBytes(prefixes.get(i)));
+        }
+        return this;
+    }
+
+    TableDescriptor build(TableName tableName) {
+        TableDescriptorBuilder builder = TableDescriptorBuilder.newBuilder(tableName);
+        for (FamilySpec family : families) {
+            builder.setColumnFamily(family.build());
+        }
+        if (regionReplication > 1)
+            builder.setRegionReplication(regionReplication);
+        return builder.build();
+    }
+
+    byte[][] splitKeyArray() {
+        return splitKeys.toArray(new byte[0][]);
+    }
+}
@@ -0,0 +1,35 @@
+package com.wt.labrador.util;
+
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 值编码,支持String,Long,Integer,Double,byte[],ByteBuffer,读取时使用CellView中对应的valueAsXxx
+ *
+ * @author 一贫
+ * @date 2021/10/21
+ */
+public final class ValueCodec {
+
+    private ValueCodec() {
+    }
+
+    public static byte[] encode(Object value) {
+        if (value == null)
+            throw new IllegalArgumentException("值不能为空.");
+        if (value instanceof byte[])
+            return (byte[]) value;
+        if (value instanceof String)
+            return Bytes.toBytes((String) value);
+        if (value instanceof Long)
+            return Bytes.toBytes((Long) value);
+        if (value instanceof Integer)
+            return Bytes.toBytes((Integer) value);
+        if (value instanceof Double)
+            return Bytes.toBytes((Double) value);
+        if (value instanceof ByteBuffer)
+            return Bytes.getBytes(((ByteBuffer) value).duplicate());
+        throw new IllegalArgumentException("不支持的值类型:" + value.getClass().getName());
+    }
+}
@@ -0,0 +1,45 @@
+package com.wt.labrador.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * hbase.execution.mode=virtual时Tomcat每个请求在一个虚拟线程中处理,请求中的HBaseUtil调用阻塞时不再占用平台线程,
+ * server.tomcat.threads.max不再限制并发请求数
+ * 当前JDK不支持虚拟线程时保持Tomcat默认线程池
+ *
+ * @author 一贫
+ * @date 2021/11/10
+ */
+@Component
+@ConditionalOnClass(ProtocolHandler.class)
+@ConditionalOnProperty(prefix = "hbase.execution", name = "mode", havingValue = "virtual")
+@Slf4j
+public class VirtualThreadTomcatCustomizer implements TomcatProtocolHandlerCustomizer<ProtocolHandler> {
+
+    private ExecutorService executor;
+
+    @Override
+    public void customize(ProtocolHandler protocolHandler) {
+        if (!HBaseExecutors.isVirtualThreadSupported()) {
+            log.warn("当前JDK {} 不支持虚拟线程,Tomcat使用默认线程池.", Runtime.version());
+            return;
+        }
+        executor = HBaseExecutors.newVirtualThreadPerTaskExecutor("tomcat-handler-");
+        protocolHandler.setExecutor(executor);
+        log.info("Tomcat请求处理已切换为虚拟线程.");
+    }
+
+    @PreDestroy
+    private void destroy() {
+        if (executor != null)
+            executor.shutdown();
+    }
+}
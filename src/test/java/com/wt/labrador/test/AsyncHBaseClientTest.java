@@ -0,0 +1,56 @@
+package com.wt.labrador.test;
+
+import com.wt.labrador.util.AsyncHBaseClient;
+import com.wt.labrador.util.HBaseUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author 一贫
+ * @date 2021/10/14
+ */
+@SpringBootTest
+public class AsyncHBaseClientTest {
+
+    @Autowired
+    private AsyncHBaseClient asyncHBaseClient;
+
+    @Autowired
+    private HBaseUtil hBaseUtil;
+
+    @Test
+    public void testPut() {
+        asyncHBaseClient.put("users", "qiyu", "info", "name", "qiyu", "qiyu").join();
+    }
+
+    @Test
+    public void testGet() {
+        CompletableFuture<String> name = asyncHBaseClient.getColumn("users", "qiyu", "info", "name", "qiyu", Duration.ofMillis(500));
+        CompletableFuture<Map<String, Map<String, String>>> row = asyncHBaseClient.getRow("users", "ada", "qiyu");
+        CompletableFuture.allOf(name, row).join();
+        System.out.println(name.join());
+        System.out.println(row.join());
+    }
+
+    @Test
+    public void testScan() {
+        System.out.println(asyncHBaseClient.scan("users", "ada", null, new String[]{"info", "work"}, "qiyu").join());
+    }
+
+    @Test
+    public void testIndexedPut() {
+        hBaseUtil.createIndex("users", "info", "name", "qiyu");
+        asyncHBaseClient.put("users", "linus", "info", "name", "Linus", "qiyu").join();
+        Assertions.assertTrue(hBaseUtil.findByIndex("users", "info", "name", "Linus", "qiyu").containsKey("linus"));
+        asyncHBaseClient.put("users", "linus", "info", "name", "Linus Torvalds", "qiyu").join();
+        Assertions.assertTrue(hBaseUtil.findByIndex("users", "info", "name", "Linus", "qiyu").isEmpty());
+        asyncHBaseClient.deleteRow("users", "linus", "qiyu").join();
+        Assertions.assertTrue(hBaseUtil.findByIndex("users", "info", "name", "Linus Torvalds", "qiyu").isEmpty());
+    }
+}
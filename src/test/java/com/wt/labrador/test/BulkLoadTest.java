@@ -0,0 +1,102 @@
+package com.wt.labrador.test;
+
+import com.wt.labrador.LabradorApplication;
+import com.wt.labrador.util.BulkLoadResult;
+import com.wt.labrador.util.BulkRows;
+import com.wt.labrador.util.HBaseRow;
+import com.wt.labrador.util.HBaseUtil;
+import com.wt.labrador.util.TableSpec;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于进程内mini cluster,不依赖外部HBase
+ *
+ * @author 一贫
+ * @date 2021/11/4
+ */
+public class BulkLoadTest {
+
+    private static HBaseTestingUtility utility;
+
+    private static ConfigurableApplicationContext context;
+
+    private static HBaseUtil hBaseUtil;
+
+    @BeforeAll
+    public static void setUp() throws Exception {
+        utility = new HBaseTestingUtility();
+        utility.startMiniCluster();
+        context = new SpringApplicationBuilder(LabradorApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties("hbase.zookeeper.quorum=127.0.0.1:" + utility.getZkCluster().getClientPort(),
+                        "debug=false")
+                .run();
+        hBaseUtil = context.getBean(HBaseUtil.class);
+        hBaseUtil.createTable("orders", TableSpec.create().family("info").uniformSplits("0", "9", 4));
+        hBaseUtil.createTable("events", TableSpec.create().family("info").family("stat").uniformSplits("0", "9", 4));
+    }
+
+    @AfterAll
+    public static void tearDown() throws Exception {
+        if (context != null)
+            context.close();
+        if (utility != null)
+            utility.shutdownMiniCluster();
+    }
+
+    @Test
+    public void testBulkLoadCsv() {
+        String csv = "7001,PAID,\"12,50\"\n"
+                + "1001,NEW,3\n"
+                + "4001,CANCELLED,\n"
+                + "1001,PAID,3\n";
+        BulkLoadResult result = hBaseUtil.bulkLoad("orders",
+                BulkRows.csv(new StringReader(csv), ',', "info", new String[]{"status", "amount"}));
+        System.out.println(result);
+        Assertions.assertEquals(4, result.getRows());
+        Assertions.assertEquals("PAID", hBaseUtil.getColumn("orders", "1001", "info", "status"));
+        Assertions.assertEquals("12,50", hBaseUtil.getColumn("orders", "7001", "info", "amount"));
+        Assertions.assertNull(hBaseUtil.getColumn("orders", "4001", "info", "amount"));
+    }
+
+    @Test
+    public void testBulkLoadJsonLines() {
+        String json = "{\"rowKey\":\"5002\",\"families\":{\"info\":{\"status\":\"NEW\"}}}\n"
+                + "{\"rowKey\":\"0002\",\"families\":{\"info\":{\"status\":\"PAID\"}}}\n";
+        hBaseUtil.bulkLoad("orders", BulkRows.jsonLines(new StringReader(json)));
+        Map<String, Map<String, Map<String, String>>> rows = hBaseUtil.scan("orders", "0002", "5003", new String[]{"info"});
+        Assertions.assertEquals("PAID", rows.get("0002").get("info").get("status"));
+        Assertions.assertEquals("NEW", rows.get("5002").get("info").get("status"));
+    }
+
+    @Test
+    public void testBulkLoadMultipleFamilies() {
+        List<HBaseRow> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Map<String, Map<String, String>> families = new HashMap<>();
+            families.computeIfAbsent("info", k -> new HashMap<>()).put("name", "event" + i);
+            families.computeIfAbsent("stat", k -> new HashMap<>()).put("count", String.valueOf(i));
+            rows.add(new HBaseRow(String.format("%04d", i * 9), families));
+        }
+        BulkLoadResult result = hBaseUtil.bulkLoad("events", rows.iterator());
+        Assertions.assertEquals(1000, result.getRows());
+        Assertions.assertEquals(2000, result.getCells());
+        // 每个Region每个列族一个文件
+        Assertions.assertTrue(result.getFiles() <= 4 * 2, result.toString());
+        Assertions.assertEquals("event999", hBaseUtil.getColumn("events", "8991", "info", "name"));
+        Assertions.assertEquals("999", hBaseUtil.getColumn("events", "8991", "stat", "count"));
+    }
+}
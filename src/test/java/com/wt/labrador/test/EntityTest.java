@@ -0,0 +1,58 @@
+package com.wt.labrador.test;
+
+import com.wt.labrador.annotation.Column;
+import com.wt.labrador.annotation.HTable;
+import com.wt.labrador.annotation.RowKey;
+import com.wt.labrador.util.HBaseUtil;
+import lombok.Data;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.stream.Stream;
+
+/**
+ * @author 一贫
+ * @date 2021/10/22
+ */
+@SpringBootTest
+public class EntityTest {
+
+    @Autowired
+    private HBaseUtil hBaseUtil;
+
+    @Test
+    public void testSave() {
+        User user = new User();
+        user.setId("laoliu");
+        user.setName("老六");
+        user.setAge("30");
+        user.setCompany("工地");
+        hBaseUtil.save(user);
+    }
+
+    @Test
+    public void testFind() {
+        System.out.println(hBaseUtil.find(User.class, "laoliu"));
+    }
+
+    @Test
+    public void testScan() {
+        try (Stream<User> users = hBaseUtil.scan(User.class, null, null, null)) {
+            users.forEach(System.out::println);
+        }
+    }
+
+    @Data
+    @HTable(name = "users", namespace = "qiyu")
+    public static class User {
+        @RowKey
+        private String id;
+        @Column(family = "info")
+        private String name;
+        @Column(family = "info")
+        private String age;
+        @Column(family = "work", qualifier = "company")
+        private String company;
+    }
+}
@@ -0,0 +1,67 @@
+package com.wt.labrador.test;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+import com.wt.labrador.util.HBaseExecutors;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author 一贫
+ * @date 2021/11/10
+ */
+public class HBaseExecutorsTest {
+
+    @Test
+    public void testVirtualThreadSupport() {
+        Assertions.assertEquals(Runtime.version().feature() >= 21, HBaseExecutors.isVirtualThreadSupported());
+        if (!HBaseExecutors.isVirtualThreadSupported()) {
+            LabradorException e = Assertions.assertThrows(LabradorException.class,
+                    () -> HBaseExecutors.newVirtualThreadPerTaskExecutor("test-"));
+            Assertions.assertEquals(ErrorCode.BAD_REQUEST, e.getCode());
+        }
+    }
+
+    @Test
+    public void testTenThousandBlockingTasks() throws InterruptedException {
+        Assumptions.assumeTrue(HBaseExecutors.isVirtualThreadSupported());
+        ExecutorService executor = HBaseExecutors.newVirtualThreadPerTaskExecutor("test-");
+        int tasks = 10000;
+        CountDownLatch started = new CountDownLatch(tasks);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            for (int i = 0; i < tasks; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            // 所有任务同时阻塞,每个任务一个虚拟线程,不受平台线程数限制
+            Assertions.assertTrue(started.await(10, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        Assertions.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testFixedThreadPoolName() throws Exception {
+        ExecutorService executor = HBaseExecutors.newFixedThreadPool("test-", 2);
+        try {
+            String name = executor.submit(() -> Thread.currentThread().getName()).get();
+            Assertions.assertTrue(name.startsWith("test-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
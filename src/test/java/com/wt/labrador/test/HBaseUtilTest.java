@@ -1,11 +1,39 @@
 package com.wt.labrador.test;
 
+import com.wt.labrador.util.CellView;
+import com.wt.labrador.util.CounterBuffer;
+import com.wt.labrador.util.FamilySpec;
+import com.wt.labrador.util.HBaseHandleManager;
+import com.wt.labrador.util.HBaseMetrics;
+import com.wt.labrador.util.HBaseRow;
 import com.wt.labrador.util.HBaseUtil;
+import com.wt.labrador.util.HBaseWriter;
+import com.wt.labrador.util.RowCache;
+import com.wt.labrador.util.RowChange;
+import com.wt.labrador.util.RowKeyStrategy;
+import com.wt.labrador.util.ScanFilters;
+import com.wt.labrador.util.ScanOptions;
+import com.wt.labrador.util.ScanPage;
+import com.wt.labrador.util.TableSpec;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 /**
  * @author 一贫
@@ -83,4 +111,197 @@ public class HBaseUtilTest {
         Map<String, Map<String, Map<String, String>>> result = hBaseUtil.scanColumnFamily("users", "ada", null, "info", new String[]{"name", "age"}, "qiyu");
         System.out.println(result);
     }
+
+    @Test
+    public void testTableMetaCache() {
+        hBaseUtil.getColumn("users", "qiyu", "info", "name", "qiyu");
+        hBaseUtil.getColumn("users", "qiyu", "info", "name", "qiyu");
+        System.out.println("hit:" + hBaseUtil.getTableMetaCache().getHitCount() + ",miss:" + hBaseUtil.getTableMetaCache().getMissCount());
+    }
+
+    @Test
+    public void testHandleManager() {
+        hBaseUtil.getRow("users", "qiyu", "qiyu");
+        HBaseHandleManager handleManager = hBaseUtil.getHandleManager();
+        System.out.println("liveTable:" + handleManager.getLiveTableCount() + ",createdTable:" + handleManager.getCreatedTableCount()
+                + ",liveAdmin:" + handleManager.getLiveAdminCount() + ",createdAdmin:" + handleManager.getCreatedAdminCount());
+    }
+
+    @Test
+    public void testBatch() {
+        Map<String, Map<String, Map<String, String>>> rows = new HashMap<>();
+        rows.put("erbao", Collections.singletonMap("info", Collections.singletonMap("name", "二宝")));
+        rows.put("sanbao", Collections.singletonMap("info", Collections.singletonMap("name", "三宝")));
+        System.out.println(hBaseUtil.putRows("users", rows, "qiyu"));
+        System.out.println(hBaseUtil.getRows("users", Arrays.asList("erbao", "sanbao"), new String[]{"info"}, "qiyu"));
+        System.out.println(hBaseUtil.deleteRows("users", Arrays.asList("erbao", "sanbao"), "qiyu"));
+    }
+
+    @Test
+    public void testWriter() {
+        HBaseWriter writer = hBaseUtil.getWriter("users", "qiyu");
+        for (int i = 0; i < 1000; i++) {
+            writer.put("writer" + i, "info", "name", "writer" + i);
+        }
+        writer.flush();
+        System.out.println("mutated:" + writer.getMutatedCount() + ",failed:" + writer.getFailedCount());
+    }
+
+    @Test
+    public void testScanStream() {
+        ScanOptions options = ScanOptions.create().caching(100).maxResultSize(2 * 1024 * 1024).cacheBlocks(false);
+        hBaseUtil.scan("users", null, null, new String[]{"info"}, options, System.out::println, "qiyu");
+        try (Stream<HBaseRow> rows = hBaseUtil.scanStream("users", "ada", null, null, options, "qiyu")) {
+            rows.map(HBaseRow::getRowKey).forEach(System.out::println);
+        }
+    }
+
+    @Test
+    public void testParallelScan() {
+        ScanOptions options = ScanOptions.create().caching(500).cacheBlocks(false);
+        hBaseUtil.parallelScan("users", null, null, null, options, true, row -> System.out.println(row.getRowKey()), "qiyu");
+    }
+
+    @Test
+    public void testScanPage() {
+        ScanPage page = hBaseUtil.scanPage("users", null, 1, null, false, "qiyu");
+        System.out.println(page);
+        while (page.hasMore()) {
+            page = hBaseUtil.scanPage("users", page.getNextCursor(), 1, null, false, "qiyu");
+            System.out.println(page);
+        }
+        System.out.println(hBaseUtil.scanPage("users", null, 1, null, true, "qiyu"));
+    }
+
+    @Test
+    public void testScanFilter() {
+        ScanOptions options = ScanOptions.create().filter(ScanFilters.and(
+                ScanFilters.qualifierPrefix("na"),
+                ScanFilters.or(ScanFilters.rowPrefix("qi"), ScanFilters.rowPrefix("ad"))));
+        hBaseUtil.scan("users", null, null, new String[]{"info"}, options, System.out::println, "qiyu");
+        options = ScanOptions.create().filter(ScanFilters.columnValue("info", "age", CompareOperator.GREATER_OR_EQUAL, "18"));
+        hBaseUtil.scan("users", null, null, null, options, System.out::println, "qiyu");
+    }
+
+    @Test
+    public void testTypedValues() {
+        Map<String, Object> values = new HashMap<>();
+        values.put("name", "qiyu");
+        values.put("age", 12);
+        values.put("score", 99.5D);
+        values.put("visits", 10000L);
+        hBaseUtil.putValues("counters", "qiyu", "info", values, "qiyu");
+        byte[] info = Bytes.toBytes("info");
+        byte[] age = Bytes.toBytes("age");
+        byte[] visits = Bytes.toBytes("visits");
+        String summary = hBaseUtil.getRowAs("counters", "qiyu", new String[]{"info"},
+                result -> CellView.latest(result, info, age).valueAsInt() + ":" + CellView.latest(result, info, visits).valueAsLong(), "qiyu");
+        System.out.println(summary);
+    }
+
+    @Test
+    public void testRowCache() {
+        hBaseUtil.getColumnFamily("users", "qiyu", "info", "qiyu");
+        hBaseUtil.getColumnFamily("users", "qiyu", "info", "qiyu");
+        hBaseUtil.put("users", "qiyu", "info", "age", "13", "qiyu");
+        System.out.println(hBaseUtil.getColumnFamily("users", "qiyu", "info", "qiyu"));
+        RowCache rowCache = hBaseUtil.getHotRowCache();
+        System.out.println("hitRatio:" + rowCache.getHitRatio() + ",eviction:" + rowCache.getEvictionCount());
+    }
+
+    @Test
+    public void testCoalesce() throws InterruptedException {
+        // 需要在配置中开启hbase.coalesce.enabled
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch latch = new CountDownLatch(64);
+        for (int i = 0; i < 64; i++) {
+            String rowKey = "qiyu" + (i % 4);
+            executor.execute(() -> {
+                try {
+                    System.out.println(rowKey + ":" + hBaseUtil.getRow("users", rowKey, "qiyu"));
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+        latch.await();
+        executor.shutdown();
+    }
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testMetrics() {
+        hBaseUtil.put("users", "qiyu", "info", "age", "12", "qiyu");
+        hBaseUtil.getRow("users", "qiyu", "qiyu");
+        meterRegistry.find(HBaseMetrics.OPERATIONS).timers().forEach(timer ->
+                System.out.println(timer.getId().getTags() + ",count:" + timer.count() + ",max:" + timer.max(TimeUnit.MILLISECONDS) + "ms"));
+        meterRegistry.find(HBaseMetrics.BYTES).counters().forEach(counter ->
+                System.out.println(counter.getId().getTags() + ",bytes:" + counter.count()));
+    }
+
+    @Test
+    public void testRowKeyStrategy() {
+        hBaseUtil.createTable("events", new String[]{"info"}, "qiyu");
+        hBaseUtil.registerRowKeyStrategy("events", "qiyu", RowKeyStrategy.salt(8));
+        for (int i = 0; i < 20; i++) {
+            hBaseUtil.put("events", String.format("event_%04d", i), "info", "seq", String.valueOf(i), "qiyu");
+        }
+        System.out.println(hBaseUtil.getRow("events", "event_0003", "qiyu"));
+        // 按原始rowKey顺序返回
+        hBaseUtil.scan("events", "event_0005", "event_0015", null, null, row -> System.out.println(row), "qiyu");
+    }
+
+    @Test
+    public void testCreateTableWithSpec() {
+        TableSpec spec = TableSpec.create()
+                .family(FamilySpec.of("info")
+                        .compression(Compression.Algorithm.SNAPPY)
+                        .dataBlockEncoding(DataBlockEncoding.FAST_DIFF)
+                        .bloomFilter(BloomType.ROW)
+                        .blockSize(16 * 1024)
+                        .inMemory(true)
+                        .ttl(7 * 24 * 3600)
+                        .maxVersions(3))
+                .bucketSplits(RowKeyStrategy.salt(8));
+        hBaseUtil.createTable("orders", spec, "qiyu");
+        hBaseUtil.registerRowKeyStrategy("orders", "qiyu", RowKeyStrategy.salt(8));
+    }
+
+    @Test
+    public void testIncrement() {
+        System.out.println(hBaseUtil.increment("users", "qiyu", "info", "visits", 1, "qiyu"));
+        CounterBuffer counters = hBaseUtil.getCounterBuffer("users", "qiyu");
+        for (int i = 0; i < 1000; i++) {
+            counters.add("qiyu", "info", "visits", 1);
+        }
+        counters.flush();
+        System.out.println(hBaseUtil.increment("users", "qiyu", "info", "visits", 0, "qiyu"));
+    }
+
+    @Test
+    public void testCheckAndMutate() {
+        hBaseUtil.put("users", "ada", "info", "status", "NEW", "qiyu");
+        boolean success = hBaseUtil.checkAndMutate("users", "ada", "info", "status", CompareOperator.EQUAL, "NEW",
+                RowChange.create().put("info", "status", "PAID").delete("info", "lockOwner"), "qiyu");
+        System.out.println(success + "," + hBaseUtil.getColumn("users", "ada", "info", "status", "qiyu"));
+        // 状态已变化,第二次不会修改
+        System.out.println(hBaseUtil.checkAndMutate("users", "ada", "info", "status", CompareOperator.EQUAL, "NEW",
+                RowChange.create().put("info", "status", "CANCELLED"), "qiyu"));
+    }
+
+    @Test
+    public void testSecondaryIndex() {
+        hBaseUtil.createIndex("users", "info", "name", "qiyu");
+        System.out.println(hBaseUtil.rebuildIndex("users", "info", "name", "qiyu"));
+        hBaseUtil.put("users", "grace", "info", "name", "Grace", "qiyu");
+        System.out.println(hBaseUtil.findByIndex("users", "info", "name", "Grace", "qiyu"));
+        // 修改后旧值查不到,新值可以查到
+        hBaseUtil.put("users", "grace", "info", "name", "Grace Hopper", "qiyu");
+        System.out.println(hBaseUtil.findByIndex("users", "info", "name", "Grace", "qiyu"));
+        System.out.println(hBaseUtil.findByIndex("users", "info", "name", "Grace Hopper", "qiyu"));
+        hBaseUtil.deleteRow("users", "grace", "qiyu");
+        System.out.println(hBaseUtil.findByIndex("users", "info", "name", "Grace Hopper", "qiyu"));
+    }
 }
@@ -0,0 +1,36 @@
+package com.wt.labrador.test;
+
+import com.wt.labrador.util.ReactiveHBaseClient;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * @author 一贫
+ * @date 2021/11/9
+ */
+@SpringBootTest
+public class ReactiveHBaseClientTest {
+
+    @Autowired
+    private ReactiveHBaseClient reactiveHBaseClient;
+
+    @Test
+    public void testGetRow() {
+        System.out.println(reactiveHBaseClient.getRow("users", "qiyu", "qiyu").block());
+    }
+
+    @Test
+    public void testScan() {
+        // 每次只向下游请求2行,scanner在两次请求之间挂起
+        reactiveHBaseClient.scan("users", null, null, new String[]{"info"}, "qiyu")
+                .limitRate(2)
+                .doOnNext(System.out::println)
+                .blockLast();
+    }
+
+    @Test
+    public void testScanCancel() {
+        System.out.println(reactiveHBaseClient.scan("users", null, null, null, "qiyu").take(1).blockLast());
+    }
+}
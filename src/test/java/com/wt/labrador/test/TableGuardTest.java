@@ -0,0 +1,58 @@
+package com.wt.labrador.test;
+
+import com.wt.labrador.exception.ErrorCode;
+import com.wt.labrador.exception.LabradorException;
+import com.wt.labrador.util.TableGuard;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author 一贫
+ * @date 2021/11/6
+ */
+public class TableGuardTest {
+
+    @Test
+    public void testBulkhead() {
+        TableGuard guard = new TableGuard("qiyu:users", 2, 0, 10, 5, 50, 0, 0, 1000, 1);
+        TableGuard.Permit first = guard.acquire();
+        guard.acquire();
+        LabradorException e = Assertions.assertThrows(LabradorException.class, guard::acquire);
+        Assertions.assertEquals(ErrorCode.BULKHEAD_FULL, e.getCode());
+        first.release(false);
+        guard.acquire();
+    }
+
+    @Test
+    public void testCircuitOpenAndHalfOpen() throws InterruptedException {
+        TableGuard guard = new TableGuard("qiyu:users", 0, 0, 10, 4, 50, 0, 0, 100, 2);
+        for (int i = 0; i < 4; i++) {
+            guard.acquire().release(i % 2 == 0);
+        }
+        Assertions.assertEquals(TableGuard.State.OPEN, guard.getState());
+        LabradorException e = Assertions.assertThrows(LabradorException.class, guard::acquire);
+        Assertions.assertEquals(ErrorCode.CIRCUIT_OPEN, e.getCode());
+
+        Thread.sleep(150);
+        TableGuard.Permit probe1 = guard.acquire();
+        TableGuard.Permit probe2 = guard.acquire();
+        Assertions.assertEquals(TableGuard.State.HALF_OPEN, guard.getState());
+        // 探测调用数已用完
+        Assertions.assertThrows(LabradorException.class, guard::acquire);
+        probe1.release(false);
+        probe2.release(false);
+        Assertions.assertEquals(TableGuard.State.CLOSED, guard.getState());
+    }
+
+    @Test
+    public void testFailureClassification() {
+        Assertions.assertTrue(TableGuard.isFailure(ErrorCode.TIMEOUT));
+        Assertions.assertTrue(TableGuard.isFailure(ErrorCode.UNAVAILABLE));
+        Assertions.assertTrue(TableGuard.isFailure(ErrorCode.SERVER_BUSY));
+        Assertions.assertTrue(TableGuard.isFailure(ErrorCode.RETRIES_EXHAUSTED));
+        Assertions.assertFalse(TableGuard.isFailure(ErrorCode.TABLE_NOT_FOUND));
+        Assertions.assertFalse(TableGuard.isFailure(ErrorCode.BAD_REQUEST));
+        Assertions.assertFalse(TableGuard.isFailure(ErrorCode.CIRCUIT_OPEN));
+        Assertions.assertFalse(TableGuard.isFailure(ErrorCode.UNKNOWN));
+    }
+}